@@ -0,0 +1,86 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.benchmark;
+
+import io.github.davemeier82.homeautomation.core.device.Device;
+import io.github.davemeier82.homeautomation.core.repositories.DeviceRepository;
+import io.github.davemeier82.homeautomation.weewx.WeewxPropertyType;
+import io.github.davemeier82.homeautomation.weewx.WeewxValueUpdater;
+import io.github.davemeier82.homeautomation.weewx.WeewxValueUpdaters;
+import io.github.davemeier82.homeautomation.weewx.device.WeewxDevice;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+final class WeewxBenchmarkSupport {
+  static final String PARTIAL_PAYLOAD = """
+      {"dateTime": "1724862602.0", "windSpeed_kph": "1.8", "windDir": "131.0", "windGust_kph": "3.6", "windGustDir": "168.0",
+      "lightning_distance_km": "20.0", "lightning_strike_count_count": "0.0", "usUnits": "16.0"}""";
+
+  private WeewxBenchmarkSupport() {
+  }
+
+  /**
+   * @param payload {@code full} for a complete GW1000 loop packet, {@code partial} for a packet with wind and lightning only
+   */
+  static ByteBuffer payload(String payload) {
+    byte[] bytes = switch (payload) {
+      case "full" -> fullPayload();
+      case "partial" -> PARTIAL_PAYLOAD.getBytes(UTF_8);
+      default -> throw new IllegalArgumentException("unknown payload " + payload);
+    };
+    return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+  }
+
+  private static byte[] fullPayload() {
+    try (InputStream inputStream = WeewxBenchmarkSupport.class.getResourceAsStream("/loop-payload.json")) {
+      return inputStream.readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Value updaters that only feed the published values into the given sink.
+   */
+  static WeewxValueUpdaters valueUpdaters(double[] sink) {
+    Map<WeewxPropertyType, WeewxValueUpdater> updaters = new EnumMap<>(WeewxPropertyType.class);
+    for (WeewxPropertyType type : WeewxPropertyType.values()) {
+      updaters.put(type, (value, dateTime, id, displayName) -> sink[0] += value);
+    }
+    return new WeewxValueUpdaters(updaters);
+  }
+
+  /**
+   * A repository that knows every device, like a warmed-up persistence layer.
+   */
+  static DeviceRepository deviceRepository() {
+    return (DeviceRepository) Proxy.newProxyInstance(DeviceRepository.class.getClassLoader(), new Class<?>[]{DeviceRepository.class}, (proxy, method, args) -> {
+      if (method.getName().equals("getByDeviceId")) {
+        return Optional.<Device>of(new WeewxDevice("weather", "weather", Map.of()));
+      }
+      return method.getReturnType() == Optional.class ? Optional.empty() : null;
+    });
+  }
+}
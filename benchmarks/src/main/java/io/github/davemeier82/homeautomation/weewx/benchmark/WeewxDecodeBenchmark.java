@@ -0,0 +1,99 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.benchmark;
+
+import io.github.davemeier82.homeautomation.weewx.WeewxLoopPacketDecoder;
+import io.github.davemeier82.homeautomation.weewx.WeewxLoopRecord;
+import io.github.davemeier82.homeautomation.weewx.WeewxMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Decoding of a raw MQTT payload, compared to the former String and {@link ObjectMapper} round-trip. The {@code alternating} payload
+ * switches between a full and a partial packet on every invocation, like a station that publishes both.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WeewxDecodeBenchmark {
+
+  @Param({"full", "partial", "alternating"})
+  private String payload;
+
+  private final WeewxLoopPacketDecoder decoder = new WeewxLoopPacketDecoder();
+  private final WeewxLoopRecord record = new WeewxLoopRecord();
+  private final WeewxLoopPacketDecoder.Layout layout = new WeewxLoopPacketDecoder.Layout();
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private ByteBuffer[] buffers;
+  private int next;
+
+  @Setup
+  public void setup() {
+    if (payload.equals("alternating")) {
+      buffers = new ByteBuffer[]{WeewxBenchmarkSupport.payload("full"), WeewxBenchmarkSupport.payload("partial")};
+    } else {
+      buffers = new ByteBuffer[]{WeewxBenchmarkSupport.payload(payload)};
+    }
+  }
+
+  private ByteBuffer nextBuffer() {
+    ByteBuffer buffer = buffers[next];
+    next = (next + 1) & (buffers.length - 1);
+    return buffer;
+  }
+
+  @Benchmark
+  public WeewxLoopRecord decode() {
+    decoder.decode(nextBuffer(), record);
+    return record;
+  }
+
+  @Benchmark
+  public WeewxLoopRecord decodeWithLayout() {
+    decoder.decode(nextBuffer(), record, layout);
+    return record;
+  }
+
+  @Benchmark
+  public WeewxLoopRecord decodeIntoNewRecord() {
+    WeewxLoopRecord newRecord = new WeewxLoopRecord();
+    decoder.decode(nextBuffer(), newRecord);
+    return newRecord;
+  }
+
+  @Benchmark
+  public WeewxMessage decodeWithObjectMapper() {
+    return objectMapper.readValue(UTF_8.decode(nextBuffer().duplicate()).toString(), WeewxMessage.class);
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.benchmark;
+
+import io.github.davemeier82.homeautomation.core.device.Device;
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.repositories.DeviceRepository;
+import io.github.davemeier82.homeautomation.weewx.WeewxDeviceFactory;
+import io.github.davemeier82.homeautomation.weewx.WeewxDeviceResolver;
+import io.github.davemeier82.homeautomation.weewx.device.WeewxDeviceType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving the device of a packet through the {@link WeewxDeviceResolver} compared to asking the repository every time.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WeewxDeviceLookupBenchmark {
+
+  @Param({"1", "32"})
+  private int stations;
+
+  private DeviceRepository deviceRepository;
+  private WeewxDeviceResolver deviceResolver;
+  private DeviceId[] deviceIds;
+  private int next;
+
+  @Setup
+  public void setup() {
+    deviceRepository = WeewxBenchmarkSupport.deviceRepository();
+    deviceResolver = new WeewxDeviceResolver(deviceRepository, new WeewxDeviceFactory());
+    deviceIds = new DeviceId[stations];
+    for (int i = 0; i < stations; i++) {
+      deviceIds[i] = new DeviceId("station" + i, WeewxDeviceType.WEEWX);
+      deviceResolver.resolve(deviceIds[i]);
+    }
+  }
+
+  @Benchmark
+  public Device resolveCached() {
+    return deviceResolver.resolve(nextDeviceId());
+  }
+
+  @Benchmark
+  public Optional<Device> repositoryLookup() {
+    return deviceRepository.getByDeviceId(nextDeviceId());
+  }
+
+  private DeviceId nextDeviceId() {
+    next = next + 1 == deviceIds.length ? 0 : next + 1;
+    return deviceIds[next];
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.benchmark;
+
+import io.github.davemeier82.homeautomation.weewx.WeewxDeviceFactory;
+import io.github.davemeier82.homeautomation.weewx.WeewxDeviceResolver;
+import io.github.davemeier82.homeautomation.weewx.WeewxMqttSubscriber;
+import io.github.davemeier82.homeautomation.weewx.WeewxProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full {@link WeewxMqttSubscriber#processMessage(String, Optional)} path with value update services that do nothing.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WeewxMqttSubscriberBenchmark {
+
+  @Param({"full", "partial"})
+  private String payload;
+
+  @Param({"false", "true"})
+  private boolean deadband;
+
+  private final double[] sink = new double[1];
+  private WeewxMqttSubscriber subscriber;
+  private Optional<ByteBuffer> message;
+
+  @Setup
+  public void setup() {
+    WeewxProperties properties = new WeewxProperties();
+    properties.getDeadband().setEnabled(deadband);
+    subscriber = new WeewxMqttSubscriber(properties, WeewxBenchmarkSupport.valueUpdaters(sink),
+        new WeewxDeviceResolver(WeewxBenchmarkSupport.deviceRepository(), new WeewxDeviceFactory()));
+    message = Optional.of(WeewxBenchmarkSupport.payload(payload));
+  }
+
+  @Benchmark
+  public double processMessage() {
+    subscriber.processMessage("weather/loop", message);
+    return sink[0];
+  }
+}
@@ -35,48 +35,75 @@ import io.github.davemeier82.homeautomation.core.updater.WindRunValueUpdateServi
 import io.github.davemeier82.homeautomation.core.updater.WindSpeedValueUpdateService;
 import io.github.davemeier82.homeautomation.spring.core.HomeAutomationCorePersistenceAutoConfiguration;
 import io.github.davemeier82.homeautomation.spring.core.HomeAutomationCoreValueUpdateServiceAutoConfiguration;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
-import org.springframework.boot.jackson.autoconfigure.JacksonAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import tools.jackson.databind.ObjectMapper;
+
+import java.time.Clock;
 
 @Configuration
-@AutoConfigureAfter({HomeAutomationCoreValueUpdateServiceAutoConfiguration.class, HomeAutomationCorePersistenceAutoConfiguration.class, JacksonAutoConfiguration.class})
+@EnableConfigurationProperties(WeewxProperties.class)
+@AutoConfigureAfter({HomeAutomationCoreValueUpdateServiceAutoConfiguration.class, HomeAutomationCorePersistenceAutoConfiguration.class})
 public class HomeAutomationWeewxMqttSubscriberAutoConfiguration {
 
   @Bean
   @ConditionalOnMissingBean
-  @ConditionalOnBean({ObjectMapper.class, TemperatureValueUpdateService.class, HumidityValueUpdateService.class, PressureValueUpdateService.class, CloudBaseValueUpdateService.class,
+  @ConditionalOnBean({TemperatureValueUpdateService.class, HumidityValueUpdateService.class, PressureValueUpdateService.class, CloudBaseValueUpdateService.class,
       RainIntervalValueUpdateService.class, RainTodayValueUpdateService.class, RainRateValueUpdateService.class, IlluminanceValueUpdateService.class, UvIndexValueUpdateService.class,
       WindSpeedValueUpdateService.class, WindDirectionValueUpdateService.class, WindGustSpeedValueUpdateService.class, WindGustDirectionValueUpdateService.class, WindRunValueUpdateService.class,
       LightningDistanceValueUpdateService.class, LightningCountValueUpdateService.class})
-  WeewxMqttSubscriber weewxMqttSubscriber(ObjectMapper objectMapper,
-                                          TemperatureValueUpdateService temperatureValueUpdateService,
-                                          HumidityValueUpdateService humidityValueUpdateService,
-                                          PressureValueUpdateService pressureValueUpdateService,
-                                          CloudBaseValueUpdateService cloudBaseValueUpdateService,
-                                          RainIntervalValueUpdateService rainIntervalValueUpdateService,
-                                          RainTodayValueUpdateService rainTodayValueUpdateService,
-                                          RainRateValueUpdateService rainRateValueUpdateService,
-                                          IlluminanceValueUpdateService illuminanceValueUpdateService,
-                                          UvIndexValueUpdateService uvIndexValueUpdateService,
-                                          WindSpeedValueUpdateService windSpeedValueUpdateService,
-                                          WindDirectionValueUpdateService windDirectionValueUpdateService,
-                                          WindGustSpeedValueUpdateService windGustSpeedValueUpdateService,
-                                          WindGustDirectionValueUpdateService windGustDirectionValueUpdateService,
-                                          WindRunValueUpdateService windRunValueUpdateService,
-                                          LightningCountValueUpdateService lightningCountValueUpdateService,
-                                          LightningDistanceValueUpdateService lightningDistanceValueUpdateService,
-                                          DeviceRepository deviceRepository,
-                                          WeewxDeviceFactory weewxDeviceFactory
+  WeewxValueUpdaters weewxValueUpdaters(TemperatureValueUpdateService temperatureValueUpdateService,
+                                        HumidityValueUpdateService humidityValueUpdateService,
+                                        PressureValueUpdateService pressureValueUpdateService,
+                                        CloudBaseValueUpdateService cloudBaseValueUpdateService,
+                                        RainIntervalValueUpdateService rainIntervalValueUpdateService,
+                                        RainTodayValueUpdateService rainTodayValueUpdateService,
+                                        RainRateValueUpdateService rainRateValueUpdateService,
+                                        IlluminanceValueUpdateService illuminanceValueUpdateService,
+                                        UvIndexValueUpdateService uvIndexValueUpdateService,
+                                        WindSpeedValueUpdateService windSpeedValueUpdateService,
+                                        WindDirectionValueUpdateService windDirectionValueUpdateService,
+                                        WindGustSpeedValueUpdateService windGustSpeedValueUpdateService,
+                                        WindGustDirectionValueUpdateService windGustDirectionValueUpdateService,
+                                        WindRunValueUpdateService windRunValueUpdateService,
+                                        LightningCountValueUpdateService lightningCountValueUpdateService,
+                                        LightningDistanceValueUpdateService lightningDistanceValueUpdateService
   ) {
-    return new WeewxMqttSubscriber(objectMapper, temperatureValueUpdateService, humidityValueUpdateService, pressureValueUpdateService, cloudBaseValueUpdateService, rainIntervalValueUpdateService,
+    return new WeewxValueUpdaters(temperatureValueUpdateService, humidityValueUpdateService, pressureValueUpdateService, cloudBaseValueUpdateService, rainIntervalValueUpdateService,
         rainTodayValueUpdateService, rainRateValueUpdateService, illuminanceValueUpdateService, uvIndexValueUpdateService, windSpeedValueUpdateService, windDirectionValueUpdateService,
-        windGustSpeedValueUpdateService, windGustDirectionValueUpdateService, windRunValueUpdateService, lightningCountValueUpdateService, lightningDistanceValueUpdateService, deviceRepository,
-        weewxDeviceFactory);
+        windGustSpeedValueUpdateService, windGustDirectionValueUpdateService, windRunValueUpdateService, lightningCountValueUpdateService, lightningDistanceValueUpdateService);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnBean(DeviceRepository.class)
+  WeewxDeviceResolver weewxDeviceResolver(DeviceRepository deviceRepository, WeewxDeviceFactory weewxDeviceFactory, WeewxProperties weewxProperties) {
+    return new WeewxDeviceResolver(deviceRepository, weewxDeviceFactory, weewxProperties.getDeviceRevalidation(), Clock.systemUTC());
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnBean({WeewxValueUpdaters.class, WeewxDeviceResolver.class})
+  WeewxMqttSubscriber weewxMqttSubscriber(WeewxProperties weewxProperties,
+                                          WeewxValueUpdaters weewxValueUpdaters,
+                                          WeewxDeviceResolver weewxDeviceResolver,
+                                          ObjectProvider<WeewxMetrics> weewxMetrics,
+                                          ObjectProvider<WeewxBatchUpdateSink> weewxBatchUpdateSink
+  ) {
+    return new WeewxMqttSubscriber(weewxProperties, weewxValueUpdaters, weewxDeviceResolver, weewxMetrics.getIfAvailable(() -> WeewxMetrics.NOOP),
+        weewxBatchUpdateSink.getIfAvailable());
+  }
+
+  @Bean
+  @ConditionalOnBean(WeewxMqttSubscriber.class)
+  ApplicationListener<ApplicationReadyEvent> weewxSnapshotRestorer(WeewxMqttSubscriber weewxMqttSubscriber) {
+    return event -> weewxMqttSubscriber.restoreSnapshot();
   }
 
-}
+}
\ No newline at end of file
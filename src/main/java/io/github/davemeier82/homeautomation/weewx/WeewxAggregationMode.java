@@ -0,0 +1,36 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+/**
+ * How the values of an observation within an aggregation window are combined into the published value.
+ */
+public enum WeewxAggregationMode {
+  LAST,
+  AVERAGE,
+  MIN,
+  MAX,
+  SUM,
+  /**
+   * The direction of the mean wind vector for {@code windDir} and {@code windGustDir}, weighted by the speed, or the speed of the mean wind
+   * vector for {@code windSpeed_kph}.
+   */
+  VECTOR,
+  /**
+   * The direction of the strongest gust, only for {@code windGustDir}.
+   */
+  GUST
+}
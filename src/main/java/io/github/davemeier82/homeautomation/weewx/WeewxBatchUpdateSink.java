@@ -0,0 +1,27 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+/**
+ * Receives all values of a loop packet at once, e.g. to persist them in one transaction. Without a sink, the values are published one by one
+ * through the {@link WeewxValueUpdaters}. A sink that keys the values has to use the property type in addition to the
+ * {@link io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId}, see {@link WeewxValueBatch}.
+ */
+@FunctionalInterface
+public interface WeewxBatchUpdateSink {
+
+  void update(WeewxValueBatch batch);
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import java.util.Arrays;
+
+/**
+ * Drops values that did not change by more than a deadband since the last published value of the same dispatch table entry. The deadband is
+ * the larger of the absolute and the relative band. A value is always published when the last one is older than the heartbeat.
+ * <p>
+ * Delta observations, e.g. the rain of the interval, are separate events and always published.
+ * <p>
+ * Not thread-safe, the packets of one device have to be processed sequentially.
+ */
+public class WeewxDeadbandFilter implements WeewxValueFilter {
+  private final double[] absolute;
+  private final double[] relative;
+  private final boolean[] delta;
+  private final long heartbeatSeconds;
+  private final double[] lastValues;
+  private final long[] lastEpochSeconds;
+
+  public WeewxDeadbandFilter(WeewxDispatchTable dispatchTable, WeewxProperties.Deadband deadband) {
+    int size = dispatchTable.size();
+    absolute = new double[size];
+    relative = new double[size];
+    delta = new boolean[size];
+    heartbeatSeconds = deadband.getHeartbeat().toSeconds();
+    lastValues = new double[size];
+    lastEpochSeconds = new long[size];
+    Arrays.fill(lastValues, Double.NaN);
+    for (int i = 0; i < size; i++) {
+      WeewxPropertyMapping mapping = dispatchTable.getMapping(i);
+      delta[i] = mapping.observation() != null && mapping.observation().isDelta();
+      WeewxProperties.Band band = deadband.getObservations().get(mapping.key());
+      absolute[i] = band != null && band.getAbsolute() != null ? band.getAbsolute() : deadband.getAbsolute();
+      relative[i] = band != null && band.getRelative() != null ? band.getRelative() : deadband.getRelative();
+    }
+  }
+
+  @Override
+  public boolean accept(int index, double value, long epochSecond) {
+    if (delta[index]) {
+      return true;
+    }
+    double last = lastValues[index];
+    if (!Double.isNaN(last)
+        && Math.abs(value - last) <= Math.max(absolute[index], relative[index] * Math.abs(last))
+        && epochSecond - lastEpochSeconds[index] < heartbeatSeconds) {
+      return false;
+    }
+    lastValues[index] = value;
+    lastEpochSeconds[index] = epochSecond;
+    return true;
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import java.util.Arrays;
+
+import static io.github.davemeier82.homeautomation.weewx.WeewxObservation.*;
+
+/**
+ * Rolling rain and lightning sums of one station, kept in per-minute ring buffers so that each packet costs O(1) amortized.
+ * <p>
+ * Rain is taken from the per-packet {@code rain_cm} or, if a station does not send it, from the increase of {@code dayRain_cm}. A cumulative
+ * counter that goes down, e.g. at midnight or after a reboot of the station, starts over from its new value. Negative strike counts are
+ * ignored for the same reason. Packets older than the latest one are counted in the current minute.
+ * <p>
+ * The sums are added to the packet as {@link WeewxObservation#isDerived() derived observations}, so they are mapped, filtered and published
+ * like any other observation. Not thread-safe, the packets of one station have to be processed sequentially.
+ */
+public final class WeewxDerivedMetrics {
+  private static final int MINUTES = 24 * 60;
+
+  private final double[] rain = new double[MINUTES];
+  private final int[] strikes = new int[MINUTES];
+  private long minute = Long.MIN_VALUE;
+  private double rainLastHour;
+  private double rainLast24Hours;
+  private int strikesLast10Minutes;
+  private int strikesLast30Minutes;
+  private double previousDayRain = Double.NaN;
+
+  public void apply(WeewxLoopRecord record, long epochSecond) {
+    advance(Math.floorDiv(epochSecond, 60));
+    int index = index(minute);
+
+    double rainDelta = rainDelta(record);
+    rain[index] += rainDelta;
+    rainLastHour += rainDelta;
+    rainLast24Hours += rainDelta;
+
+    int strikeDelta = record.isPresent(LIGHTNING_STRIKE_COUNT) ? (int) Math.max(0, Math.round(record.get(LIGHTNING_STRIKE_COUNT))) : 0;
+    strikes[index] += strikeDelta;
+    strikesLast10Minutes += strikeDelta;
+    strikesLast30Minutes += strikeDelta;
+
+    record.set(RAIN_LAST_HOUR_CM, Math.max(0, rainLastHour));
+    record.set(RAIN_LAST_24_HOURS_CM, Math.max(0, rainLast24Hours));
+    record.set(LIGHTNING_STRIKES_LAST_10_MINUTES, strikesLast10Minutes);
+    record.set(LIGHTNING_STRIKES_LAST_30_MINUTES, strikesLast30Minutes);
+  }
+
+  private double rainDelta(WeewxLoopRecord record) {
+    double delta = 0;
+    if (record.isPresent(DAY_RAIN_CM)) {
+      double dayRain = record.get(DAY_RAIN_CM);
+      if (!Double.isNaN(previousDayRain)) {
+        delta = dayRain >= previousDayRain ? dayRain - previousDayRain : dayRain;
+      }
+      previousDayRain = dayRain;
+    }
+    if (record.isPresent(RAIN_CM)) {
+      delta = record.get(RAIN_CM);
+    }
+    return Math.max(0, delta);
+  }
+
+  private void advance(long newMinute) {
+    if (minute == Long.MIN_VALUE || newMinute - minute >= MINUTES) {
+      Arrays.fill(rain, 0);
+      Arrays.fill(strikes, 0);
+      rainLastHour = 0;
+      rainLast24Hours = 0;
+      strikesLast10Minutes = 0;
+      strikesLast30Minutes = 0;
+      minute = newMinute;
+      return;
+    }
+    while (minute < newMinute) {
+      minute++;
+      rainLastHour -= rain[index(minute - 60)];
+      strikesLast10Minutes -= strikes[index(minute - 10)];
+      strikesLast30Minutes -= strikes[index(minute - 30)];
+      int index = index(minute);
+      rainLast24Hours -= rain[index];
+      rain[index] = 0;
+      strikes[index] = 0;
+    }
+  }
+
+  private static int index(long minute) {
+    return (int) Math.floorMod(minute, MINUTES);
+  }
+}
@@ -47,7 +47,7 @@ public class WeewxDeviceFactory implements DeviceFactory {
   public Optional<Device> createDevice(DeviceType type, String id, String displayName, Map<String, String> parameters, Map<String, String> customIdentifiers) {
     if (supportsDeviceType(type)) {
       log.debug("creating WeewxDevice device with id {} ({})", id, displayName);
-      return Optional.of(new WeewxDevice("weather", displayName, customIdentifiers));
+      return Optional.of(new WeewxDevice(id, displayName, customIdentifiers));
     }
     return Optional.empty();
   }
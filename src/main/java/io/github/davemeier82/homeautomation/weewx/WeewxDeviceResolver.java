@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import io.github.davemeier82.homeautomation.core.device.Device;
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.repositories.DeviceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the weewx devices and keeps them, so that the {@link DeviceRepository} is only hit for the first packet of a device and once per
+ * revalidation interval. Concurrent packets of the same device wait for a single lookup and creation.
+ * <p>
+ * A device that was deleted at runtime is created again by the first packet after the revalidation interval. {@link #invalidate(DeviceId)}
+ * resolves a deleted or renamed device with the next packet instead.
+ */
+public class WeewxDeviceResolver {
+  private static final Logger log = LoggerFactory.getLogger(WeewxDeviceResolver.class);
+
+  private final DeviceRepository deviceRepository;
+  private final WeewxDeviceFactory weewxDeviceFactory;
+  private final long revalidationMillis;
+  private final Clock clock;
+  private final Map<DeviceId, Resolved> devices = new ConcurrentHashMap<>();
+
+  public WeewxDeviceResolver(DeviceRepository deviceRepository, WeewxDeviceFactory weewxDeviceFactory) {
+    this(deviceRepository, weewxDeviceFactory, Duration.ofMinutes(5), Clock.systemUTC());
+  }
+
+  /**
+   * @param revalidation how long a device is kept before it is looked up again, or zero to keep it until it is invalidated
+   */
+  public WeewxDeviceResolver(DeviceRepository deviceRepository, WeewxDeviceFactory weewxDeviceFactory, Duration revalidation, Clock clock) {
+    if (revalidation.isNegative()) {
+      throw new IllegalArgumentException("device revalidation must not be negative");
+    }
+    this.deviceRepository = deviceRepository;
+    this.weewxDeviceFactory = weewxDeviceFactory;
+    this.revalidationMillis = revalidation.isZero() ? Long.MAX_VALUE : revalidation.toMillis();
+    this.clock = clock;
+  }
+
+  public Device resolve(DeviceId deviceId) {
+    Resolved resolved = devices.get(deviceId);
+    if (resolved != null && isFresh(resolved)) {
+      return resolved.device();
+    }
+    return devices.compute(deviceId, (id, current) -> current != null && isFresh(current) ? current : new Resolved(getOrCreate(id), clock.millis()))
+        .device();
+  }
+
+  private boolean isFresh(Resolved resolved) {
+    return clock.millis() - resolved.resolvedMillis() < revalidationMillis;
+  }
+
+  private Device getOrCreate(DeviceId deviceId) {
+    return deviceRepository.getByDeviceId(deviceId).orElseGet(() -> {
+      Device newDevice = weewxDeviceFactory.createDevice(deviceId.type(), deviceId.id(), deviceId.toString(), Map.of(), Map.of()).orElseThrow();
+      deviceRepository.save(newDevice);
+      return newDevice;
+    });
+  }
+
+  public void invalidate(DeviceId deviceId) {
+    if (devices.remove(deviceId) != null) {
+      log.debug("invalidated cached weewx device {}", deviceId);
+    }
+  }
+
+  public void invalidateAll() {
+    devices.clear();
+  }
+
+  private record Resolved(Device device, long resolvedMillis) {
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * The precomputed, immutable dispatch of the observations of a loop packet to the value update services of one device.
+ */
+public final class WeewxDispatchTable {
+  private final WeewxPropertyMapping[] mappings;
+  private final int[] slots;
+  private final WeewxObservation[] timestamps;
+  private final WeewxPropertyType[] types;
+  private final WeewxValueUpdater[] updaters;
+  private final DevicePropertyId[] propertyIds;
+  private final String[] displayNames;
+  private final double[] scales;
+
+  public WeewxDispatchTable(DeviceId deviceId, List<WeewxPropertyMapping> mappings, WeewxValueUpdaters valueUpdaters) {
+    int size = mappings.size();
+    List<String> extraKeys = WeewxPropertyMappings.extraKeys(mappings);
+    this.mappings = mappings.toArray(WeewxPropertyMapping[]::new);
+    slots = new int[size];
+    timestamps = new WeewxObservation[size];
+    types = new WeewxPropertyType[size];
+    updaters = new WeewxValueUpdater[size];
+    propertyIds = new DevicePropertyId[size];
+    displayNames = new String[size];
+    scales = new double[size];
+    for (int i = 0; i < size; i++) {
+      WeewxPropertyMapping mapping = this.mappings[i];
+      slots[i] = mapping.observation() != null ? mapping.observation().ordinal() : WeewxObservation.COUNT + extraKeys.indexOf(mapping.extraKey());
+      timestamps[i] = mapping.timestamp();
+      types[i] = mapping.type();
+      updaters[i] = valueUpdaters.get(mapping.type());
+      propertyIds[i] = new DevicePropertyId(deviceId, mapping.propertyId());
+      displayNames[i] = mapping.displayName();
+      scales[i] = mapping.scale();
+    }
+  }
+
+  public void dispatch(WeewxLoopRecord record, long epochSecond) {
+    dispatch(record, epochSecond, WeewxValueFilter.ACCEPT_ALL);
+  }
+
+  /**
+   * The {@link OffsetDateTime} of the packet is only created if a value is published.
+   */
+  public void dispatch(WeewxLoopRecord record, long epochSecond, WeewxValueFilter filter) {
+    OffsetDateTime dateTime = null;
+    for (int i = 0; i < slots.length; i++) {
+      if (record.isPresent(slots[i])) {
+        double value = record.get(slots[i]) * scales[i];
+        if (filter.accept(i, value, epochSecond)) {
+          OffsetDateTime valueDateTime;
+          if (timestamps[i] != null && record.isPresent(timestamps[i])) {
+            valueDateTime = WeewxTimestamps.toDateTime(record.get(timestamps[i]));
+          } else {
+            if (dateTime == null) {
+              dateTime = WeewxTimestamps.toDateTime(epochSecond);
+            }
+            valueDateTime = dateTime;
+          }
+          updaters[i].setValue(value, valueDateTime, propertyIds[i], displayNames[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Like {@link #dispatch(WeewxLoopRecord, long, WeewxValueFilter)}, but collects the values into the batch instead of publishing them.
+   */
+  public void collect(WeewxLoopRecord record, long epochSecond, WeewxValueFilter filter, WeewxValueBatch batch) {
+    batch.reset(epochSecond);
+    for (int i = 0; i < slots.length; i++) {
+      if (record.isPresent(slots[i])) {
+        double value = record.get(slots[i]) * scales[i];
+        if (filter.accept(i, value, epochSecond)) {
+          long valueEpochSecond = timestamps[i] != null && record.isPresent(timestamps[i]) ? (long) record.get(timestamps[i]) : epochSecond;
+          batch.add(types[i], propertyIds[i], displayNames[i], value, valueEpochSecond);
+        }
+      }
+    }
+  }
+
+  public int size() {
+    return mappings.length;
+  }
+
+  public WeewxPropertyMapping getMapping(int index) {
+    return mappings[index];
+  }
+
+  public DevicePropertyId getPropertyId(int index) {
+    return propertyIds[index];
+  }
+}
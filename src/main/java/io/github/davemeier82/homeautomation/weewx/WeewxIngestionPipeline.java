@@ -0,0 +1,416 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decouples the MQTT callback from the processing of loop packets. {@link #submit(String, ByteBuffer)} only puts the packet into a bounded
+ * ring buffer, the worker threads take it from there and hand it to the processor. What happens when the buffer is full is defined by the
+ * {@link OverflowPolicy}.
+ * <p>
+ * Each worker owns a lane with its own ring buffer, and every topic is assigned to one lane by its hash. So the packets of a station are
+ * processed in order by a single thread, while different stations are processed in parallel. The lock of a lane is only shared by the
+ * submitting threads and its worker, and the state of a station is never contended between workers.
+ * <p>
+ * With {@link OverflowPolicy#COALESCE_LATEST} at most one packet per topic is pending. A newer packet is merged field by field into the
+ * pending one (see {@link WeewxLoopRecord#merge(WeewxLoopRecord)}), so observations that only an older partial packet contained are not
+ * lost. Only packets that are actually coalesced are decoded on the submitting thread, outside the lock of the lane and with the
+ * {@link Processor#layoutOf(String) layout} of their station. The pending packet stays raw until its worker decodes it and merges the newer
+ * fields on top, so the packets of a station are still decoded with the unit system and key order it learned. A malformed packet is rejected
+ * without changing the pending one.
+ */
+public class WeewxIngestionPipeline implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(WeewxIngestionPipeline.class);
+  private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(5);
+
+  public enum OverflowPolicy {
+    /**
+     * Discards the oldest pending packet to make room for the new one.
+     */
+    DROP_OLDEST,
+    /**
+     * Merges the new packet into a pending packet of the same topic, falls back to {@link #DROP_OLDEST} if there is none.
+     */
+    COALESCE_LATEST,
+    /**
+     * Blocks the MQTT callback until there is room.
+     */
+    BLOCK
+  }
+
+  /**
+   * Processes packets taken from the pipeline.
+   */
+  public interface Processor {
+    void process(String topic, ByteBuffer payload);
+
+    void process(String topic, WeewxLoopRecord record);
+
+    /**
+     * @param live false if the packet was replayed instead of received from the broker
+     */
+    default void process(String topic, ByteBuffer payload, boolean live) {
+      process(topic, payload);
+    }
+
+    /**
+     * @param live false if the packet was replayed instead of received from the broker
+     */
+    default void process(String topic, WeewxLoopRecord record, boolean live) {
+      process(topic, record);
+    }
+
+    /**
+     * @return the layout the packets of the topic are decoded with when they are coalesced, or null to look up every key
+     */
+    default WeewxLoopPacketDecoder.Layout layoutOf(String topic) {
+      return null;
+    }
+  }
+
+  private final Lane[] lanes;
+  private final OverflowPolicy overflowPolicy;
+  private final WeewxLoopPacketDecoder decoder;
+  private final Processor processor;
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder processed = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+
+  /**
+   * The capacity of the pipeline is divided between the lanes, so it has to be at least the number of workers.
+   */
+  public WeewxIngestionPipeline(WeewxProperties.Pipeline pipeline, WeewxLoopPacketDecoder decoder, Processor processor) {
+    if (pipeline.getWorkers() < 1) {
+      throw new IllegalArgumentException("pipeline needs at least one worker");
+    }
+    if (pipeline.getCapacity() < pipeline.getWorkers()) {
+      throw new IllegalArgumentException("pipeline capacity must be at least the number of workers");
+    }
+    overflowPolicy = pipeline.getOverflowPolicy();
+    this.decoder = decoder;
+    this.processor = processor;
+    int laneCapacity = Math.max(1, pipeline.getCapacity() / pipeline.getWorkers());
+    Thread.Builder builder = pipeline.isVirtualThreads() ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+    builder.name("weewx-ingestion-", 0);
+    lanes = new Lane[pipeline.getWorkers()];
+    for (int i = 0; i < lanes.length; i++) {
+      lanes[i] = new Lane(laneCapacity);
+      lanes[i].worker = builder.start(lanes[i]::work);
+    }
+  }
+
+  /**
+   * Enqueues a loop packet. The payload must not be modified afterward.
+   */
+  public void submit(String topic, ByteBuffer payload) {
+    submit(topic, payload, true);
+  }
+
+  /**
+   * @param live false if the packet is replayed, it is then only coalesced with other replayed packets
+   */
+  public void submit(String topic, ByteBuffer payload, boolean live) {
+    lanes[laneOf(topic)].submit(topic, payload, live);
+  }
+
+  int laneOf(String topic) {
+    int hash = topic.hashCode();
+    return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+  }
+
+  public int getQueueDepth() {
+    int depth = 0;
+    for (Lane lane : lanes) {
+      depth += lane.getSize();
+    }
+    return depth;
+  }
+
+  public int getCapacity() {
+    return lanes.length * lanes[0].topics.length;
+  }
+
+  public int getLaneCount() {
+    return lanes.length;
+  }
+
+  public long getDroppedCount() {
+    return dropped.sum();
+  }
+
+  public long getCoalescedCount() {
+    return coalesced.sum();
+  }
+
+  /**
+   * @return the number of malformed packets discarded while coalescing
+   */
+  public long getRejectedCount() {
+    return rejected.sum();
+  }
+
+  public long getProcessedCount() {
+    return processed.sum();
+  }
+
+  public long getFailedCount() {
+    return failed.sum();
+  }
+
+  /**
+   * Waits until the workers have processed the pending packets, e.g. at the end of a replay. Unlike {@link #close()}, new packets are still
+   * accepted.
+   */
+  public void awaitIdle() throws InterruptedException {
+    for (Lane lane : lanes) {
+      lane.awaitIdle();
+    }
+  }
+
+  /**
+   * Stops accepting packets and waits for the workers to process the pending ones.
+   */
+  @Override
+  public void close() {
+    for (Lane lane : lanes) {
+      lane.stop();
+    }
+    try {
+      for (Lane lane : lanes) {
+        if (!lane.worker.join(SHUTDOWN_TIMEOUT)) {
+          log.warn("{} did not finish within {}", lane.worker.getName(), SHUTDOWN_TIMEOUT);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private final class Lane {
+    private final String[] topics;
+    private final ByteBuffer[] payloads;
+    // the decoded fields of newer packets merged into a pending one, or the whole packet if its payload is null
+    private final WeewxLoopRecord[] records;
+    private final boolean[] live;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition idle = lock.newCondition();
+    private Thread worker;
+    private int head;
+    private int size;
+    private boolean busy;
+    private boolean running = true;
+
+    private Lane(int capacity) {
+      topics = new String[capacity];
+      payloads = new ByteBuffer[capacity];
+      records = new WeewxLoopRecord[capacity];
+      live = new boolean[capacity];
+    }
+
+    private void submit(String topic, ByteBuffer payload, boolean live) {
+      WeewxLoopRecord record = null;
+      if (overflowPolicy == OverflowPolicy.COALESCE_LATEST && hasPending(topic, live)) {
+        record = new WeewxLoopRecord();
+        if (!decode(topic, payload, record)) {
+          return;
+        }
+      }
+      lock.lock();
+      try {
+        if (!running) {
+          dropped.increment();
+          return;
+        }
+        if (record != null) {
+          int index = indexOfPending(topic, live);
+          if (index >= 0) {
+            if (records[index] == null) {
+              records[index] = record;
+            } else {
+              records[index].merge(record);
+            }
+            coalesced.increment();
+            return;
+          }
+          // the worker took the pending packet meanwhile, the decoded one is queued on its own
+        }
+        if (size == topics.length) {
+          switch (overflowPolicy) {
+            case BLOCK -> {
+              while (size == topics.length && running) {
+                notFull.awaitUninterruptibly();
+              }
+              if (!running) {
+                dropped.increment();
+                return;
+              }
+            }
+            case COALESCE_LATEST, DROP_OLDEST -> removeOldest();
+          }
+        }
+        int tail = (head + size) % topics.length;
+        topics[tail] = topic;
+        payloads[tail] = record == null ? payload : null;
+        records[tail] = record;
+        this.live[tail] = live;
+        size++;
+        notEmpty.signal();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private boolean hasPending(String topic, boolean live) {
+      lock.lock();
+      try {
+        return indexOfPending(topic, live) >= 0;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private int indexOfPending(String topic, boolean live) {
+      for (int i = 0; i < size; i++) {
+        int index = (head + i) % topics.length;
+        if (topics[index].equals(topic) && this.live[index] == live) {
+          return index;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * @return the pending packet with the fields of the newer packets on top, or only the newer fields if the pending packet is malformed
+     */
+    private WeewxLoopRecord merge(String topic, ByteBuffer payload, WeewxLoopRecord newer) {
+      WeewxLoopRecord pending = new WeewxLoopRecord();
+      if (!decode(topic, payload, pending)) {
+        return newer;
+      }
+      pending.merge(newer);
+      return pending;
+    }
+
+    private boolean decode(String topic, ByteBuffer payload, WeewxLoopRecord record) {
+      try {
+        decoder.decode(payload, record, processor.layoutOf(topic));
+        return true;
+      } catch (IllegalArgumentException e) {
+        rejected.increment();
+        log.debug("rejected malformed weewx loop packet while coalescing", e);
+        return false;
+      }
+    }
+
+    private void removeOldest() {
+      topics[head] = null;
+      payloads[head] = null;
+      records[head] = null;
+      head = (head + 1) % topics.length;
+      size--;
+      dropped.increment();
+    }
+
+    private void work() {
+      while (true) {
+        String topic;
+        ByteBuffer payload;
+        WeewxLoopRecord record;
+        boolean live;
+        lock.lock();
+        try {
+          busy = false;
+          while (size == 0) {
+            idle.signalAll();
+            if (!running) {
+              return;
+            }
+            notEmpty.awaitUninterruptibly();
+          }
+          busy = true;
+          topic = topics[head];
+          payload = payloads[head];
+          record = records[head];
+          live = this.live[head];
+          topics[head] = null;
+          payloads[head] = null;
+          records[head] = null;
+          head = (head + 1) % topics.length;
+          size--;
+          notFull.signal();
+        } finally {
+          lock.unlock();
+        }
+        try {
+          if (payload == null) {
+            processor.process(topic, record, live);
+          } else if (record == null) {
+            processor.process(topic, payload, live);
+          } else {
+            processor.process(topic, merge(topic, payload, record), live);
+          }
+          processed.increment();
+        } catch (RuntimeException e) {
+          failed.increment();
+          log.error("failed to process weewx loop packet of {}", topic, e);
+        }
+      }
+    }
+
+    private void awaitIdle() throws InterruptedException {
+      lock.lock();
+      try {
+        while ((size > 0 || busy) && worker.isAlive()) {
+          idle.await();
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private int getSize() {
+      lock.lock();
+      try {
+        return size;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private void stop() {
+      lock.lock();
+      try {
+        running = false;
+        notEmpty.signalAll();
+        notFull.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
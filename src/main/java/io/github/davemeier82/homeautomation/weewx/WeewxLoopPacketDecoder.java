@@ -0,0 +1,490 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.weewx;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Decodes a weewx loop packet directly from the MQTT payload into a {@link WeewxLoopRecord}.
+ * <p>
+ * weewx publishes a flat JSON object whose values are numbers or numeric strings. The decoder scans the bytes once, matches keys against a
+ * precomputed hash table and parses the numbers in place, so no {@link String} or boxed value is created. Absent, {@code null} or non-numeric
+ * values are not marked present in the record. Values with more than 15 significant digits are accurate to within one ulp.
+ * <p>
+ * Keys that are not a {@link WeewxObservation} are skipped unless they are one of the extra keys, whose values are stored in the slots after
+ * the observations.
+ * <p>
+ * The keys of the other {@link WeewxUnitSystem}s, e.g. {@code outTemp_F} or {@code rain_mm}, are decoded into the same slot as the METRIC
+ * key, and each entry of the hash table converts its value with a precomputed multiply-add. Keys without a unit label, e.g. {@code outTemp},
+ * are converted after the packet is decoded, according to its {@code usUnits}, or the last one seen with the {@link Layout} of the station.
+ * <p>
+ * weewx publishes the keys of a station in the same order in every packet. With a {@link Layout} per station, the decoder learns that order
+ * from the first packets and afterwards only compares each key with the ones expected at its position instead of hashing it. Keys that do not
+ * match are looked up in the hash table.
+ * <p>
+ * Instances are immutable and thread-safe. The position of the buffer is not modified.
+ */
+public final class WeewxLoopPacketDecoder {
+  private static final long MANTISSA_LIMIT = 100_000_000_000_000_000L;
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+  private static final int MAX_EXPONENT = 400;
+  private static final byte[] DATE_TIME_KEY = WeewxObservation.DATE_TIME.getKey().getBytes(UTF_8);
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private final byte[][] keys;
+  private final int[] slots;
+  private final double[] scales;
+  private final double[] offsets;
+  private final boolean[] unitless;
+  private final int mask;
+
+  public WeewxLoopPacketDecoder() {
+    this(List.of());
+  }
+
+  /**
+   * @param extraKeys keys that are not a {@link WeewxObservation} but should be decoded, see {@link WeewxPropertyMappings#extraKeys(List)}
+   */
+  public WeewxLoopPacketDecoder(List<String> extraKeys) {
+    if (extraKeys.size() > WeewxLoopRecord.MAX_EXTRA_SLOTS) {
+      throw new IllegalArgumentException("at most " + WeewxLoopRecord.MAX_EXTRA_SLOTS + " extra weewx keys are supported");
+    }
+    List<Entry> entries = new ArrayList<>();
+    for (WeewxObservation observation : WeewxObservation.values()) {
+      if (!observation.isDerived()) {
+        entries.add(new Entry(observation.getKey(), observation.ordinal(), 1, 0, false));
+      }
+    }
+    for (int i = 0; i < extraKeys.size(); i++) {
+      entries.add(new Entry(extraKeys.get(i), WeewxObservation.COUNT + i, 1, 0, false));
+    }
+    int explicit = entries.size();
+    for (WeewxObservation observation : WeewxObservation.values()) {
+      if (!observation.isDerived() && observation.getUnit() != null) {
+        for (WeewxUnitSystem system : WeewxUnitSystem.values()) {
+          WeewxUnit unit = system.unitOf(observation.getUnit());
+          entries.add(new Entry(observation.getName() + "_" + unit.getSuffix(), observation.ordinal(), unit.getScale(), unit.getOffset(), false));
+        }
+        entries.add(new Entry(observation.getName(), observation.ordinal(), 1, 0, true));
+      }
+    }
+    int size = Integer.highestOneBit(entries.size() * 4 - 1) << 1;
+    keys = new byte[size][];
+    slots = new int[size];
+    scales = new double[size];
+    offsets = new double[size];
+    unitless = new boolean[size];
+    mask = size - 1;
+    for (int i = 0; i < entries.size(); i++) {
+      // the keys of other unit systems must not replace a configured extra key
+      put(entries.get(i), i < explicit);
+    }
+  }
+
+  private void put(Entry entry, boolean unique) {
+    byte[] key = entry.key().getBytes(UTF_8);
+    int index = hash(key) & mask;
+    while (keys[index] != null) {
+      if (Arrays.equals(keys[index], key)) {
+        if (unique) {
+          throw new IllegalArgumentException("duplicate weewx key " + entry.key());
+        }
+        return;
+      }
+      index = (index + 1) & mask;
+    }
+    keys[index] = key;
+    slots[index] = entry.slot();
+    scales[index] = entry.scale();
+    offsets[index] = entry.offset();
+    unitless[index] = entry.unitless();
+  }
+
+  public void decode(ByteBuffer buffer, WeewxLoopRecord record) {
+    decode(buffer, record, null);
+  }
+
+  /**
+   * @param layout the learned layout of the station that published the packet, or null to look up every key in the hash table
+   */
+  public void decode(ByteBuffer buffer, WeewxLoopRecord record, Layout layout) {
+    record.clear();
+    int limit = buffer.limit();
+    int pos = expect(buffer, skipWhitespace(buffer, buffer.position(), limit), limit, '{');
+    pos = skipWhitespace(buffer, pos, limit);
+    if (byteAt(buffer, pos, limit) == '}') {
+      return;
+    }
+    long unitlessMask = 0;
+    for (int position = 0; ; position++) {
+      int keyStart = expect(buffer, pos, limit, '"');
+      int keyEnd = endOfString(buffer, keyStart, limit);
+      int entry = layout == null ? indexOf(buffer, keyStart, keyEnd) : layout.indexOf(this, position, buffer, keyStart, keyEnd);
+      int slot = entry >= 0 ? slots[entry] : -1;
+      if (entry >= 0 && unitless[entry]) {
+        unitlessMask |= 1L << slot;
+      }
+      pos = skipWhitespace(buffer, expect(buffer, skipWhitespace(buffer, keyEnd + 1, limit), limit, ':'), limit);
+
+      byte first = byteAt(buffer, pos, limit);
+      int next;
+      if (first == '"') {
+        int valueEnd = endOfString(buffer, pos + 1, limit);
+        if (slot >= 0) {
+          record.set(slot, parseNumber(buffer, pos + 1, valueEnd) * scales[entry] + offsets[entry]);
+        }
+        next = valueEnd + 1;
+      } else if (first == '{' || first == '[') {
+        next = skipNested(buffer, pos, limit);
+      } else {
+        int valueEnd = endOfLiteral(buffer, pos, limit);
+        if (slot >= 0) {
+          record.set(slot, parseNumber(buffer, pos, valueEnd) * scales[entry] + offsets[entry]);
+        }
+        next = valueEnd;
+      }
+
+      pos = skipWhitespace(buffer, next, limit);
+      byte separator = byteAt(buffer, pos, limit);
+      if (separator == '}') {
+        break;
+      }
+      if (separator != ',') {
+        throw malformed(pos);
+      }
+      pos = skipWhitespace(buffer, pos + 1, limit);
+    }
+    if (unitlessMask != 0) {
+      unitSystemOf(record, layout).toMetric(record, unitlessMask);
+    }
+  }
+
+  /**
+   * Reads only the {@code dateTime} of a packet, e.g. to pace a replay before the packet is decoded. The keys before it are compared but
+   * not hashed, and no other value is parsed.
+   *
+   * @return the dateTime of the packet, or NaN if it has none
+   */
+  public static double dateTimeOf(ByteBuffer buffer) {
+    int limit = buffer.limit();
+    int pos = skipWhitespace(buffer, expect(buffer, skipWhitespace(buffer, buffer.position(), limit), limit, '{'), limit);
+    if (byteAt(buffer, pos, limit) == '}') {
+      return Double.NaN;
+    }
+    while (true) {
+      int keyStart = expect(buffer, pos, limit, '"');
+      int keyEnd = endOfString(buffer, keyStart, limit);
+      boolean dateTime = matches(DATE_TIME_KEY, buffer, keyStart, keyEnd);
+      pos = skipWhitespace(buffer, expect(buffer, skipWhitespace(buffer, keyEnd + 1, limit), limit, ':'), limit);
+      byte first = byteAt(buffer, pos, limit);
+      int next;
+      if (first == '"') {
+        int valueEnd = endOfString(buffer, pos + 1, limit);
+        if (dateTime) {
+          return parseNumber(buffer, pos + 1, valueEnd);
+        }
+        next = valueEnd + 1;
+      } else if (first == '{' || first == '[') {
+        next = skipNested(buffer, pos, limit);
+      } else {
+        int valueEnd = endOfLiteral(buffer, pos, limit);
+        if (dateTime) {
+          return parseNumber(buffer, pos, valueEnd);
+        }
+        next = valueEnd;
+      }
+      pos = skipWhitespace(buffer, next, limit);
+      byte separator = byteAt(buffer, pos, limit);
+      if (separator == '}') {
+        return Double.NaN;
+      }
+      if (separator != ',') {
+        throw malformed(pos);
+      }
+      pos = skipWhitespace(buffer, pos + 1, limit);
+    }
+  }
+
+  private static WeewxUnitSystem unitSystemOf(WeewxLoopRecord record, Layout layout) {
+    WeewxUnitSystem unitSystem = layout == null ? WeewxUnitSystem.METRIC : layout.unitSystem;
+    if (record.isPresent(WeewxObservation.US_UNITS)) {
+      unitSystem = WeewxUnitSystem.of(record.get(WeewxObservation.US_UNITS)).orElse(unitSystem);
+      if (layout != null) {
+        layout.unitSystem = unitSystem;
+      }
+    }
+    return unitSystem;
+  }
+
+  private int indexOf(ByteBuffer buffer, int start, int end) {
+    int hash = 0x811c9dc5;
+    for (int i = start; i < end; i++) {
+      hash = (hash ^ (buffer.get(i) & 0xff)) * 0x01000193;
+    }
+    int index = hash & mask;
+    byte[] key;
+    while ((key = keys[index]) != null) {
+      if (matches(key, buffer, start, end)) {
+        return index;
+      }
+      index = (index + 1) & mask;
+    }
+    return -1;
+  }
+
+  private static boolean matches(byte[] key, ByteBuffer buffer, int start, int end) {
+    if (key.length != end - start) {
+      return false;
+    }
+    for (int i = 0; i < key.length; i++) {
+      if (key[i] != buffer.get(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int hash(byte[] key) {
+    int hash = 0x811c9dc5;
+    for (byte b : key) {
+      hash = (hash ^ (b & 0xff)) * 0x01000193;
+    }
+    return hash;
+  }
+
+  static double parseNumber(ByteBuffer buffer, int start, int end) {
+    int i = start;
+    boolean negative = false;
+    if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+      negative = buffer.get(i) == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int exponent = 0;
+    boolean digits = false;
+    boolean fraction = false;
+    for (; i < end; i++) {
+      byte b = buffer.get(i);
+      if (b >= '0' && b <= '9') {
+        digits = true;
+        if (mantissa < MANTISSA_LIMIT) {
+          mantissa = mantissa * 10 + (b - '0');
+          if (fraction) {
+            exponent--;
+          }
+        } else if (!fraction) {
+          exponent++;
+        }
+      } else if (b == '.' && !fraction) {
+        fraction = true;
+      } else if ((b == 'e' || b == 'E') && digits) {
+        int explicitExponent = parseExponent(buffer, i + 1, end);
+        if (explicitExponent == Integer.MIN_VALUE) {
+          return Double.NaN;
+        }
+        exponent += explicitExponent;
+        break;
+      } else {
+        return Double.NaN;
+      }
+    }
+    if (!digits) {
+      return Double.NaN;
+    }
+    double value = toDouble(mantissa, exponent);
+    return negative ? -value : value;
+  }
+
+  private static int parseExponent(ByteBuffer buffer, int start, int end) {
+    int i = start;
+    boolean negative = false;
+    if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+      negative = buffer.get(i) == '-';
+      i++;
+    }
+    if (i == end) {
+      return Integer.MIN_VALUE;
+    }
+    int exponent = 0;
+    for (; i < end; i++) {
+      byte b = buffer.get(i);
+      if (b < '0' || b > '9') {
+        return Integer.MIN_VALUE;
+      }
+      exponent = Math.min(exponent * 10 + (b - '0'), MAX_EXPONENT);
+    }
+    return negative ? -exponent : exponent;
+  }
+
+  private static double toDouble(long mantissa, int exponent) {
+    if (mantissa == 0 || exponent == 0) {
+      return mantissa;
+    }
+    if (exponent < 0 && exponent >= -22) {
+      // exact for mantissas up to 2^53 (Clinger's fast path), otherwise off by at most one ulp
+      return mantissa / POWERS_OF_TEN[-exponent];
+    }
+    if (exponent > 0 && exponent <= 22 && mantissa <= MAX_EXACT_MANTISSA) {
+      return mantissa * POWERS_OF_TEN[exponent];
+    }
+    return mantissa * Math.pow(10, exponent);
+  }
+
+  private static int skipWhitespace(ByteBuffer buffer, int pos, int limit) {
+    while (pos < limit) {
+      byte b = buffer.get(pos);
+      if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+        return pos;
+      }
+      pos++;
+    }
+    return pos;
+  }
+
+  private static int expect(ByteBuffer buffer, int pos, int limit, char expected) {
+    if (byteAt(buffer, pos, limit) != expected) {
+      throw malformed(pos);
+    }
+    return pos + 1;
+  }
+
+  private static byte byteAt(ByteBuffer buffer, int pos, int limit) {
+    if (pos >= limit) {
+      throw malformed(pos);
+    }
+    return buffer.get(pos);
+  }
+
+  private static int endOfString(ByteBuffer buffer, int pos, int limit) {
+    while (true) {
+      byte b = byteAt(buffer, pos, limit);
+      if (b == '"') {
+        return pos;
+      }
+      pos += b == '\\' ? 2 : 1;
+    }
+  }
+
+  private static int endOfLiteral(ByteBuffer buffer, int pos, int limit) {
+    while (pos < limit) {
+      byte b = buffer.get(pos);
+      if (b == ',' || b == '}' || b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+        return pos;
+      }
+      pos++;
+    }
+    return pos;
+  }
+
+  private static int skipNested(ByteBuffer buffer, int pos, int limit) {
+    int depth = 0;
+    while (true) {
+      byte b = byteAt(buffer, pos, limit);
+      if (b == '"') {
+        pos = endOfString(buffer, pos + 1, limit);
+      } else if (b == '{' || b == '[') {
+        depth++;
+      } else if ((b == '}' || b == ']') && --depth == 0) {
+        return pos + 1;
+      }
+      pos++;
+    }
+  }
+
+  private static IllegalArgumentException malformed(int pos) {
+    return new IllegalArgumentException("malformed weewx loop packet at offset " + pos);
+  }
+
+  private record Entry(String key, int slot, double scale, double offset, boolean unitless) {
+  }
+
+  /**
+   * The key order learned from the packets of one station, to be used with a single decoder. Unknown keys are learned as well, so they are
+   * skipped without hashing.
+   * <p>
+   * Each position keeps the key learned first and one alternate, so a station that alternates between two layouts, such as full and partial
+   * packets, is decoded without hashing or allocating once both are learned. A key that matches neither is looked up in the hash table and
+   * replaces the alternate, the first key of a position is never replaced.
+   * <p>
+   * Thread-safe, concurrent packets of the same station can at most cause additional lookups.
+   */
+  public static final class Layout {
+    // the first and the alternate key of position p are at 2p and 2p + 1
+    private volatile Key[] keys = new Key[32];
+    private volatile WeewxUnitSystem unitSystem = WeewxUnitSystem.METRIC;
+
+    int indexOf(WeewxLoopPacketDecoder decoder, int position, ByteBuffer buffer, int start, int end) {
+      Key[] current = keys;
+      int first = position * 2;
+      Key expected = first < current.length ? current[first] : null;
+      if (expected != null) {
+        if (matches(expected.bytes, buffer, start, end)) {
+          return expected.index;
+        }
+        Key alternate = current[first + 1];
+        if (alternate != null && matches(alternate.bytes, buffer, start, end)) {
+          return alternate.index;
+        }
+      }
+      int index = decoder.indexOf(buffer, start, end);
+      byte[] bytes;
+      if (index >= 0) {
+        bytes = decoder.keys[index];
+      } else {
+        bytes = new byte[end - start];
+        buffer.get(start, bytes);
+      }
+      if (first >= current.length) {
+        current = Arrays.copyOf(current, Math.max(current.length * 2, first + 2));
+      }
+      current[expected == null ? first : first + 1] = new Key(bytes, index);
+      keys = current;
+      return index;
+    }
+
+    /**
+     * @return the number of key positions learned so far
+     */
+    public int size() {
+      Key[] current = keys;
+      int size = 0;
+      for (int i = 0; i < current.length; i += 2) {
+        if (current[i] != null) {
+          size++;
+        }
+      }
+      return size;
+    }
+
+    /**
+     * @return the unit system of the last packet with {@code usUnits}, used for keys without a unit label
+     */
+    public WeewxUnitSystem getUnitSystem() {
+      return unitSystem;
+    }
+
+    private record Key(byte[] bytes, int index) {
+    }
+  }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.weewx;
+
+import java.math.BigDecimal;
+
+/**
+ * A decoded weewx loop packet. The observations are kept in a {@code double[]} indexed by {@link WeewxObservation#ordinal()} and a
+ * bitmask tracks which of them were present in the packet.
+ * <p>
+ * Instances are mutable and can be reused for consecutive packets. They are not thread-safe.
+ */
+public final class WeewxLoopRecord {
+  static {
+    if (WeewxObservation.COUNT > Long.SIZE) {
+      throw new ExceptionInInitializerError("presence mask cannot hold " + WeewxObservation.COUNT + " observations");
+    }
+  }
+
+  static final int MAX_EXTRA_SLOTS = Long.SIZE;
+
+  private final double[] values = new double[WeewxObservation.COUNT];
+  private long presenceMask;
+  private double[] extraValues;
+  private long extraMask;
+
+  public boolean isPresent(WeewxObservation observation) {
+    return (presenceMask & (1L << observation.ordinal())) != 0;
+  }
+
+  /**
+   * @return the value of the observation or {@link Double#NaN} if it is not present
+   */
+  public double get(WeewxObservation observation) {
+    return isPresent(observation) ? values[observation.ordinal()] : Double.NaN;
+  }
+
+  public float getFloat(WeewxObservation observation) {
+    return (float) get(observation);
+  }
+
+  public void set(WeewxObservation observation, double value) {
+    set(observation.ordinal(), value);
+  }
+
+  boolean isPresent(int slot) {
+    if (slot < WeewxObservation.COUNT) {
+      return (presenceMask & (1L << slot)) != 0;
+    }
+    return (extraMask & (1L << (slot - WeewxObservation.COUNT))) != 0;
+  }
+
+  double get(int slot) {
+    if (!isPresent(slot)) {
+      return Double.NaN;
+    }
+    return slot < WeewxObservation.COUNT ? values[slot] : extraValues[slot - WeewxObservation.COUNT];
+  }
+
+  /**
+   * @param slot the ordinal of a {@link WeewxObservation} or {@link WeewxObservation#COUNT} + n for the n-th extra key of the decoder
+   */
+  void set(int slot, double value) {
+    if (slot >= WeewxObservation.COUNT) {
+      setExtra(slot - WeewxObservation.COUNT, value);
+    } else if (Double.isNaN(value)) {
+      presenceMask &= ~(1L << slot);
+    } else {
+      values[slot] = value;
+      presenceMask |= 1L << slot;
+    }
+  }
+
+  private void setExtra(int index, double value) {
+    if (Double.isNaN(value)) {
+      extraMask &= ~(1L << index);
+      return;
+    }
+    if (extraValues == null) {
+      extraValues = new double[MAX_EXTRA_SLOTS];
+    }
+    extraValues[index] = value;
+    extraMask |= 1L << index;
+  }
+
+  public void remove(WeewxObservation observation) {
+    presenceMask &= ~(1L << observation.ordinal());
+  }
+
+  public void clear() {
+    presenceMask = 0;
+    extraMask = 0;
+  }
+
+  public boolean isEmpty() {
+    return presenceMask == 0 && extraMask == 0;
+  }
+
+  /**
+   * @return the number of present observations and extra values
+   */
+  public int size() {
+    return Long.bitCount(presenceMask) + Long.bitCount(extraMask);
+  }
+
+  /**
+   * @return bit n is set if the observation with ordinal n is present, extra values are not included
+   */
+  public long getPresenceMask() {
+    return presenceMask;
+  }
+
+  public void copyFrom(WeewxLoopRecord other) {
+    System.arraycopy(other.values, 0, values, 0, values.length);
+    presenceMask = other.presenceMask;
+    extraMask = 0;
+    mergeExtras(other);
+  }
+
+  /**
+   * Merges a newer packet of the same station into this one. Observations of the newer packet replace the ones of this packet, except for
+   * {@link WeewxObservation#isDelta() deltas} which are summed up. Observations only present in this packet are kept.
+   */
+  public void merge(WeewxLoopRecord newer) {
+    long both = presenceMask & newer.presenceMask;
+    for (WeewxObservation observation : WeewxObservation.values()) {
+      int slot = observation.ordinal();
+      if (observation.isDelta() && (both & (1L << slot)) != 0) {
+        values[slot] += newer.values[slot];
+      } else if ((newer.presenceMask & (1L << slot)) != 0) {
+        values[slot] = newer.values[slot];
+      }
+    }
+    presenceMask |= newer.presenceMask;
+    mergeExtras(newer);
+  }
+
+  /**
+   * Copies the extra values present in the newer packet into this one.
+   */
+  void mergeExtras(WeewxLoopRecord newer) {
+    long mask = newer.extraMask;
+    while (mask != 0) {
+      int index = Long.numberOfTrailingZeros(mask);
+      mask &= mask - 1;
+      setExtra(index, newer.extraValues[index]);
+    }
+  }
+
+  /**
+   * Creates a {@link WeewxMessage} with the present observations for code that still works with the bean.
+   */
+  public WeewxMessage toWeewxMessage() {
+    WeewxMessage message = new WeewxMessage();
+    for (WeewxObservation observation : WeewxObservation.values()) {
+      if (isPresent(observation)) {
+        String value = format(values[observation.ordinal()]);
+        switch (observation) {
+        case DATE_TIME -> message.setDateTime(value);
+        case IN_TEMP_C -> message.setInTempC(value);
+        case OUT_TEMP_C -> message.setOutTempC(value);
+        case IN_HUMIDITY -> message.setInHumidity(value);
+        case OUT_HUMIDITY -> message.setOutHumidity(value);
+        case PRESSURE_MBAR -> message.setPressureMbar(value);
+        case RELBAROMETER -> message.setRelbarometer(value);
+        case WH32_BATT -> message.setWh32Battery(value);
+        case WH32_SIG -> message.setWh32Signal(value);
+        case ALTIMETER_MBAR -> message.setAltimeterMbar(value);
+        case APP_TEMP_C -> message.setAppTempC(value);
+        case BAROMETER_MBAR -> message.setBarometerMbar(value);
+        case CLOUDBASE_METER -> message.setCloudbaseMeter(value);
+        case DEWPOINT_C -> message.setDewpointC(value);
+        case HEATINDEX_C -> message.setHeatindexC(value);
+        case HUMIDEX_C -> message.setHumidexC(value);
+        case IN_DEWPOINT_C -> message.setInDewpointC(value);
+        case RAIN_RATE_CM_PER_HOUR -> message.setRainRateCmPerHour(value);
+        case WINDCHILL_C -> message.setWindchillC(value);
+        case WINDRUN_KM -> message.setWindrunKm(value);
+        case INTERVAL_MINUTE -> message.setIntervalMinute(value);
+        case HOUR_RAIN_CM -> message.setHourRainCm(value);
+        case RAIN24_CM -> message.setRain24Cm(value);
+        case DAY_RAIN_CM -> message.setDayRainCm(value);
+        case US_UNITS -> message.setUsUnits(value);
+        case LUMINOSITY_LUX -> message.setLuminosityLux(value);
+        case UVRADIATION -> message.setUvradiation(value);
+        case UV -> message.setUv(value);
+        case RAIN_CM -> message.setRainCm(value);
+        case STORM_RAIN_CM -> message.setStormRainCm(value);
+        case WEEK_RAIN_CM -> message.setWeekRainCm(value);
+        case MONTH_RAIN_CM -> message.setMonthRainCm(value);
+        case YEAR_RAIN_CM -> message.setYearRainCm(value);
+        case WIND_SPEED_KPH -> message.setWindSpeedKmh(value);
+        case WIND_DIR -> message.setWindDir(value);
+        case WIND_GUST_KPH -> message.setWindGustKmh(value);
+        case WIND_GUST_DIR -> message.setWindGustDir(value);
+        case DAYMAXWIND -> message.setDaymaxwind(value);
+        case WH65_SIG -> message.setWh65Signal(value);
+        case EXTRA_TEMP2_C -> message.setExtraTemp2C(value);
+        case EXTRA_TEMP3_C -> message.setExtraTemp3C(value);
+        case EXTRA_TEMP4_C -> message.setExtraTemp4C(value);
+        case EXTRA_TEMP5_C -> message.setExtraTemp5C(value);
+        case EXTRA_HUMID2 -> message.setExtraHumid2(value);
+        case EXTRA_HUMID3 -> message.setExtraHumid3(value);
+        case EXTRA_HUMID4 -> message.setExtraHumid4(value);
+        case EXTRA_HUMID5 -> message.setExtraHumid5(value);
+        case WH31_CH2_BATT -> message.setWh31Ch2Battery(value);
+        case WH31_CH2_SIG -> message.setWh31Ch2Signal(value);
+        case WH40_BATT -> message.setWh40Battery(value);
+        case WH40_SIG -> message.setWh40Signal(value);
+        case WH68_BATT -> message.setWh68Battery(value);
+        case WH68_SIG -> message.setWh68Signal(value);
+        case LIGHTNING_DISTANCE_KM -> message.setLightingDistanceKm(value);
+        case LIGHTNING_STRIKE_COUNT -> message.setLightingStrikeCount(value);
+        case LIGHTNING_LAST_DET_TIME -> message.setLastLightningDateTime(value);
+        }
+      }
+    }
+    return message;
+  }
+
+  /**
+   * Formats like weewx, e.g. {@code 1724862600.0} instead of {@code 1.7248626E9}.
+   */
+  static String format(double value) {
+    if (Double.isInfinite(value) || (Math.abs(value) >= 1e-3 && Math.abs(value) < 1e7) || value == 0) {
+      return Double.toString(value);
+    }
+    String plain = BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    return plain.indexOf('.') < 0 ? plain + ".0" : plain;
+  }
+}
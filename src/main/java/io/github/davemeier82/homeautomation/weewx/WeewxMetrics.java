@@ -0,0 +1,59 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+/**
+ * Instrumentation hooks of the ingestion path. The default implementation records nothing, see {@link WeewxMicrometerMetrics}.
+ */
+public interface WeewxMetrics {
+  WeewxMetrics NOOP = new WeewxMetrics() {
+  };
+
+  /**
+   * @param stationId   the station the packet belongs to
+   * @param decodeNanos time spent decoding the payload
+   */
+  default void packetDecoded(String stationId, long decodeNanos) {
+  }
+
+  default void packetRejected(String stationId) {
+  }
+
+  /**
+   * @param stationId the station the packet belongs to
+   * @param fields    number of observations present in the packet
+   * @param lagMillis wall-clock time since the {@code dateTime} of the packet, negative if unknown
+   */
+  default void packetDispatched(String stationId, int fields, long lagMillis) {
+  }
+
+  /**
+   * @return the updater to use for the given type, e.g. one that times the wrapped update service
+   */
+  default WeewxValueUpdater instrument(WeewxPropertyType type, WeewxValueUpdater updater) {
+    return updater;
+  }
+
+  /**
+   * @return the sink to use, e.g. one that times the wrapped sink
+   */
+  default WeewxBatchUpdateSink instrument(WeewxBatchUpdateSink batchSink) {
+    return batchSink;
+  }
+
+  default void bind(WeewxIngestionPipeline pipeline) {
+  }
+}
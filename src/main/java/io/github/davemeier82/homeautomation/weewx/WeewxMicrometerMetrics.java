@@ -0,0 +1,159 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Records the {@link WeewxMetrics} in a Micrometer {@link MeterRegistry}. Meters are tagged with the station id or the property type. Station
+ * ids are derived from the topic, so only the first {@code maxStations} stations get their own tag and any further station is counted as
+ * {@value #OTHER_STATIONS}.
+ */
+public class WeewxMicrometerMetrics implements WeewxMetrics {
+  public static final int DEFAULT_MAX_STATIONS = 32;
+  public static final String OTHER_STATIONS = "other";
+
+  private final MeterRegistry registry;
+  private final int maxStations;
+  private final Map<String, StationMeters> stations = new ConcurrentHashMap<>();
+  private final Map<WeewxPropertyType, Timer> updateTimers = new EnumMap<>(WeewxPropertyType.class);
+  private int taggedStations;
+  private StationMeters otherStations;
+
+  public WeewxMicrometerMetrics(MeterRegistry registry) {
+    this(registry, DEFAULT_MAX_STATIONS);
+  }
+
+  public WeewxMicrometerMetrics(MeterRegistry registry, int maxStations) {
+    this.registry = registry;
+    this.maxStations = maxStations;
+    for (WeewxPropertyType type : WeewxPropertyType.values()) {
+      updateTimers.put(type, Timer.builder("weewx.update")
+          .description("Time spent in the value update service")
+          .tag("type", type.name().toLowerCase())
+          .register(registry));
+    }
+  }
+
+  @Override
+  public void packetDecoded(String stationId, long decodeNanos) {
+    getStationMeters(stationId).decode.record(decodeNanos, NANOSECONDS);
+  }
+
+  @Override
+  public void packetRejected(String stationId) {
+    getStationMeters(stationId).rejected.increment();
+  }
+
+  @Override
+  public void packetDispatched(String stationId, int fields, long lagMillis) {
+    StationMeters meters = getStationMeters(stationId);
+    meters.packets.increment();
+    meters.fields.record(fields);
+    if (lagMillis >= 0) {
+      meters.lag.record(lagMillis, MILLISECONDS);
+    }
+  }
+
+  @Override
+  public WeewxValueUpdater instrument(WeewxPropertyType type, WeewxValueUpdater updater) {
+    Timer timer = updateTimers.get(type);
+    return (value, dateTime, devicePropertyId, displayName) -> {
+      long start = System.nanoTime();
+      try {
+        updater.setValue(value, dateTime, devicePropertyId, displayName);
+      } finally {
+        timer.record(System.nanoTime() - start, NANOSECONDS);
+      }
+    };
+  }
+
+  @Override
+  public WeewxBatchUpdateSink instrument(WeewxBatchUpdateSink batchSink) {
+    Timer timer = Timer.builder("weewx.update.batch").description("Time spent in the batch update sink").register(registry);
+    return batch -> {
+      long start = System.nanoTime();
+      try {
+        batchSink.update(batch);
+      } finally {
+        timer.record(System.nanoTime() - start, NANOSECONDS);
+      }
+    };
+  }
+
+  @Override
+  public void bind(WeewxIngestionPipeline pipeline) {
+    Gauge.builder("weewx.pipeline.queue.depth", pipeline, WeewxIngestionPipeline::getQueueDepth).register(registry);
+    Gauge.builder("weewx.pipeline.capacity", pipeline, WeewxIngestionPipeline::getCapacity).register(registry);
+    pipelineCounter("weewx.pipeline.dropped", pipeline, WeewxIngestionPipeline::getDroppedCount);
+    pipelineCounter("weewx.pipeline.coalesced", pipeline, WeewxIngestionPipeline::getCoalescedCount);
+    pipelineCounter("weewx.pipeline.rejected", pipeline, WeewxIngestionPipeline::getRejectedCount);
+    pipelineCounter("weewx.pipeline.processed", pipeline, WeewxIngestionPipeline::getProcessedCount);
+    pipelineCounter("weewx.pipeline.failed", pipeline, WeewxIngestionPipeline::getFailedCount);
+  }
+
+  private void pipelineCounter(String name, WeewxIngestionPipeline pipeline, ToDoubleFunction<WeewxIngestionPipeline> count) {
+    FunctionCounter.builder(name, pipeline, count).register(registry);
+  }
+
+  private StationMeters getStationMeters(String stationId) {
+    StationMeters meters = stations.get(stationId);
+    if (meters != null) {
+      return meters;
+    }
+    return stations.computeIfAbsent(stationId, this::createStationMeters);
+  }
+
+  private synchronized StationMeters createStationMeters(String stationId) {
+    if (taggedStations < maxStations) {
+      taggedStations++;
+      return new StationMeters(registry, stationId);
+    }
+    if (otherStations == null) {
+      otherStations = new StationMeters(registry, OTHER_STATIONS);
+    }
+    return otherStations;
+  }
+
+  private static final class StationMeters {
+    private final Timer decode;
+    private final Counter rejected;
+    private final Counter packets;
+    private final DistributionSummary fields;
+    private final Timer lag;
+
+    private StationMeters(MeterRegistry registry, String stationId) {
+      decode = Timer.builder("weewx.packet.decode").description("Time spent decoding a loop packet").tag("station", stationId).register(registry);
+      rejected = Counter.builder("weewx.packet.rejected").description("Loop packets that could not be parsed").tag("station", stationId).register(registry);
+      packets = Counter.builder("weewx.packet.dispatched").description("Loop packets dispatched to the update services").tag("station", stationId).register(registry);
+      fields = DistributionSummary.builder("weewx.packet.fields").description("Observations present per loop packet").tag("station", stationId).register(registry);
+      lag = Timer.builder("weewx.packet.lag").description("Time from the dateTime of a loop packet to its dispatch").tag("station", stationId).register(registry);
+    }
+  }
+}
@@ -16,236 +16,292 @@
 
 package io.github.davemeier82.homeautomation.weewx;
 
-import io.github.davemeier82.homeautomation.core.device.Device;
 import io.github.davemeier82.homeautomation.core.device.DeviceId;
 import io.github.davemeier82.homeautomation.core.device.mqtt.MqttSubscriber;
-import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
-import io.github.davemeier82.homeautomation.core.repositories.DeviceRepository;
-import io.github.davemeier82.homeautomation.core.updater.CloudBaseValueUpdateService;
-import io.github.davemeier82.homeautomation.core.updater.HumidityValueUpdateService;
-import io.github.davemeier82.homeautomation.core.updater.IlluminanceValueUpdateService;
-import io.github.davemeier82.homeautomation.core.updater.LightningCountValueUpdateService;
-import io.github.davemeier82.homeautomation.core.updater.LightningDistanceValueUpdateService;
-import io.github.davemeier82.homeautomation.core.updater.PressureValueUpdateService;
-import io.github.davemeier82.homeautomation.core.updater.RainIntervalValueUpdateService;
-import io.github.davemeier82.homeautomation.core.updater.RainRateValueUpdateService;
-import io.github.davemeier82.homeautomation.core.updater.RainTodayValueUpdateService;
-import io.github.davemeier82.homeautomation.core.updater.TemperatureValueUpdateService;
-import io.github.davemeier82.homeautomation.core.updater.UvIndexValueUpdateService;
-import io.github.davemeier82.homeautomation.core.updater.WindDirectionValueUpdateService;
-import io.github.davemeier82.homeautomation.core.updater.WindGustDirectionValueUpdateService;
-import io.github.davemeier82.homeautomation.core.updater.WindGustSpeedValueUpdateService;
-import io.github.davemeier82.homeautomation.core.updater.WindRunValueUpdateService;
-import io.github.davemeier82.homeautomation.core.updater.WindSpeedValueUpdateService;
 import io.github.davemeier82.homeautomation.weewx.device.WeewxDeviceType;
+import io.github.davemeier82.homeautomation.weewx.history.WeewxHistory;
+import io.github.davemeier82.homeautomation.weewx.snapshot.WeewxSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import tools.jackson.databind.ObjectMapper;
 
 import java.nio.ByteBuffer;
-import java.time.Instant;
-import java.time.OffsetDateTime;
-import java.time.ZoneId;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-import static java.lang.Double.parseDouble;
-import static java.lang.Float.parseFloat;
-import static java.nio.charset.StandardCharsets.UTF_8;
+import static io.github.davemeier82.homeautomation.weewx.WeewxObservation.DATE_TIME;
 
-public class WeewxMqttSubscriber implements MqttSubscriber {
+/**
+ * Decodes the weewx loop packets of all stations below the subscribed topic and publishes their values.
+ * <p>
+ * Concurrency model: the MQTT client may call {@link #processMessage(String, Optional)} from any number of threads. Shared state, i.e. the
+ * stations, the resolved devices, the history and the snapshot, is kept in concurrent structures and is created exactly once. The mutable
+ * state of a station, i.e. its deadband, aggregation window and derived metrics, is only written by the thread that dispatches its packet.
+ * <ul>
+ *   <li>Without the {@link WeewxIngestionPipeline}, packets are processed on the MQTT thread, and {@link WeewxStation#dispatch} serializes
+ *   concurrent packets of the same station.</li>
+ *   <li>With the pipeline, each topic is assigned to one lane by its hash, and each lane has a single worker. The packets of a station are
+ *   processed in order by that worker, so the lock of the station is never contended, while stations on different lanes scale across
+ *   cores.</li>
+ * </ul>
+ * With aggregation, a timer publishes the windows of stations that stopped sending packets. It takes the lock of the station as well.
+ */
+public class WeewxMqttSubscriber implements MqttSubscriber, WeewxIngestionPipeline.Processor, AutoCloseable {
   private static final Logger log = LoggerFactory.getLogger(WeewxMqttSubscriber.class);
-  private final ObjectMapper objectMapper;
-
-  private final DeviceId DEVICE_ID = new DeviceId("weather", WeewxDeviceType.WEEWX);
-
-  private final TemperatureValueUpdateService temperatureValueUpdateService;
-  private final HumidityValueUpdateService humidityValueUpdateService;
-  private final PressureValueUpdateService pressureValueUpdateService;
-  private final CloudBaseValueUpdateService cloudBaseValueUpdateService;
-  private final RainIntervalValueUpdateService rainIntervalValueUpdateService;
-  private final RainTodayValueUpdateService rainTodayValueUpdateService;
-  private final RainRateValueUpdateService rainRateValueUpdateService;
-  private final IlluminanceValueUpdateService illuminanceValueUpdateService;
-  private final UvIndexValueUpdateService uvIndexValueUpdateService;
-  private final WindSpeedValueUpdateService windSpeedValueUpdateService;
-  private final WindDirectionValueUpdateService windDirectionValueUpdateService;
-  private final WindGustSpeedValueUpdateService windGustSpeedValueUpdateService;
-  private final WindGustDirectionValueUpdateService windGustDirectionValueUpdateService;
-  private final WindRunValueUpdateService windRunValueUpdateService;
-  private final LightningCountValueUpdateService lightningCountValueUpdateService;
-  private final LightningDistanceValueUpdateService lightningDistanceValueUpdateService;
-  private final DeviceRepository deviceRepository;
-  private final WeewxDeviceFactory weewxDeviceFactory;
+  private final WeewxLoopPacketDecoder decoder;
+
+  private final WeewxProperties properties;
+  private final List<WeewxPropertyMapping> mappings;
+  private final WeewxValueUpdaters valueUpdaters;
+  private final WeewxStationRouter stationRouter;
+  private final Map<String, WeewxStation> stations = new ConcurrentHashMap<>();
+  private final Map<String, WeewxStation> archiveStations = new ConcurrentHashMap<>();
+  private final WeewxIngestionPipeline pipeline;
+  private final WeewxDeviceResolver deviceResolver;
+  private final WeewxMetrics metrics;
+  private final WeewxBatchUpdateSink batchSink;
+  private final WeewxHistory history;
+  private final WeewxSnapshot snapshot;
+  private final ScheduledExecutorService aggregationTimer;
+
+  public WeewxMqttSubscriber(
+      WeewxProperties properties,
+      WeewxValueUpdaters valueUpdaters,
+      WeewxDeviceResolver deviceResolver
+  ) {
+    this(properties, valueUpdaters, deviceResolver, WeewxMetrics.NOOP);
+  }
 
   public WeewxMqttSubscriber(
-      ObjectMapper objectMapper,
-      TemperatureValueUpdateService temperatureValueUpdateService,
-      HumidityValueUpdateService humidityValueUpdateService,
-      PressureValueUpdateService pressureValueUpdateService,
-      CloudBaseValueUpdateService cloudBaseValueUpdateService,
-      RainIntervalValueUpdateService rainIntervalValueUpdateService,
-      RainTodayValueUpdateService rainTodayValueUpdateService,
-      RainRateValueUpdateService rainRateValueUpdateService,
-      IlluminanceValueUpdateService illuminanceValueUpdateService,
-      UvIndexValueUpdateService uvIndexValueUpdateService,
-      WindSpeedValueUpdateService windSpeedValueUpdateService,
-      WindDirectionValueUpdateService windDirectionValueUpdateService,
-      WindGustSpeedValueUpdateService windGustSpeedValueUpdateService,
-      WindGustDirectionValueUpdateService windGustDirectionValueUpdateService,
-      WindRunValueUpdateService windRunValueUpdateService,
-      LightningCountValueUpdateService lightningCountValueUpdateService,
-      LightningDistanceValueUpdateService lightningDistanceValueUpdateService,
-      DeviceRepository deviceRepository,
-      WeewxDeviceFactory weewxDeviceFactory
+      WeewxProperties properties,
+      WeewxValueUpdaters valueUpdaters,
+      WeewxDeviceResolver deviceResolver,
+      WeewxMetrics metrics
   ) {
-    this.temperatureValueUpdateService = temperatureValueUpdateService;
-    this.humidityValueUpdateService = humidityValueUpdateService;
-    this.pressureValueUpdateService = pressureValueUpdateService;
-    this.cloudBaseValueUpdateService = cloudBaseValueUpdateService;
-    this.rainIntervalValueUpdateService = rainIntervalValueUpdateService;
-    this.rainTodayValueUpdateService = rainTodayValueUpdateService;
-    this.rainRateValueUpdateService = rainRateValueUpdateService;
-    this.illuminanceValueUpdateService = illuminanceValueUpdateService;
-    this.uvIndexValueUpdateService = uvIndexValueUpdateService;
-    this.windSpeedValueUpdateService = windSpeedValueUpdateService;
-    this.windDirectionValueUpdateService = windDirectionValueUpdateService;
-    this.windGustSpeedValueUpdateService = windGustSpeedValueUpdateService;
-    this.windGustDirectionValueUpdateService = windGustDirectionValueUpdateService;
-    this.windRunValueUpdateService = windRunValueUpdateService;
-    this.lightningCountValueUpdateService = lightningCountValueUpdateService;
-    this.lightningDistanceValueUpdateService = lightningDistanceValueUpdateService;
-    this.objectMapper = objectMapper;
-    this.deviceRepository = deviceRepository;
-    this.weewxDeviceFactory = weewxDeviceFactory;
+    this(properties, valueUpdaters, deviceResolver, metrics, null);
+  }
+
+  /**
+   * @param batchSink receives all values of a packet at once, or null to publish them through the value updaters one by one
+   */
+  public WeewxMqttSubscriber(
+      WeewxProperties properties,
+      WeewxValueUpdaters valueUpdaters,
+      WeewxDeviceResolver deviceResolver,
+      WeewxMetrics metrics,
+      WeewxBatchUpdateSink batchSink
+  ) {
+    this.properties = properties;
+    this.mappings = WeewxPropertyMappings.withOverrides(WeewxPropertyMappings.defaults(), properties.getMappings());
+    this.decoder = new WeewxLoopPacketDecoder(WeewxPropertyMappings.extraKeys(mappings));
+    this.history = properties.getHistory().isEnabled() ? new WeewxHistory(properties.getHistory().getCapacity()) : null;
+    WeewxValueUpdaters instrumentedUpdaters = metrics == WeewxMetrics.NOOP ? valueUpdaters : valueUpdaters.instrument(metrics);
+    WeewxValueUpdaters recordedUpdaters = history == null ? instrumentedUpdaters : history.record(instrumentedUpdaters);
+    this.snapshot = properties.getSnapshot().isEnabled() ? new WeewxSnapshot(properties.getSnapshot().getFile(), properties.getSnapshot().getInterval()) : null;
+    this.valueUpdaters = snapshot == null ? recordedUpdaters : snapshot.record(recordedUpdaters);
+    this.stationRouter = new WeewxStationRouter(properties);
+    this.deviceResolver = deviceResolver;
+    this.metrics = metrics;
+    WeewxBatchUpdateSink instrumentedSink = batchSink == null ? null : metrics.instrument(batchSink);
+    WeewxBatchUpdateSink recordedSink = history == null || instrumentedSink == null ? instrumentedSink : history.record(instrumentedSink);
+    this.batchSink = snapshot == null || recordedSink == null ? recordedSink : snapshot.record(recordedSink);
+    this.pipeline = properties.getPipeline().isEnabled() ? new WeewxIngestionPipeline(properties.getPipeline(), decoder, this) : null;
+    if (pipeline != null) {
+      metrics.bind(pipeline);
+    }
+    this.aggregationTimer = properties.getAggregation().isEnabled() ? startAggregationTimer(properties.getAggregation().getWindow()) : null;
+  }
+
+  /**
+   * Publishes the values of the snapshot again. Called once the update services are ready, see
+   * {@link HomeAutomationWeewxMqttSubscriberAutoConfiguration}.
+   *
+   * @return the number of published values
+   */
+  public int restoreSnapshot() {
+    return snapshot == null ? 0 : snapshot.restore(valueUpdaters, deviceResolver::resolve);
   }
 
   @Override
   public String getTopic() {
-    return "weather/loop/#";
+    return properties.getTopic();
   }
 
   @Override
   public void processMessage(String topic, Optional<ByteBuffer> payload) {
     payload.ifPresent(byteBuffer -> {
-      String message = UTF_8.decode(byteBuffer).toString();
-      log.debug("{}: {}", topic, message);
-      deviceRepository.getByDeviceId(DEVICE_ID).orElseGet(() -> {
-        Device newDevice = weewxDeviceFactory.createDevice(DEVICE_ID.type(), DEVICE_ID.id(), DEVICE_ID.toString(), Map.of(), Map.of()).orElseThrow();
-        deviceRepository.save(newDevice);
-        return newDevice;
-      });
-      WeewxMessage weewxMessage = objectMapper.readValue(message, WeewxMessage.class);
-      OffsetDateTime dateTime = OffsetDateTime.now();
-      if (weewxMessage.getDateTime() != null) {
-        Instant instant = Instant.ofEpochSecond(Double.valueOf(weewxMessage.getDateTime()).longValue());
-        dateTime = OffsetDateTime.ofInstant(instant, ZoneId.systemDefault());
-      }
-      if (weewxMessage.getInTempC() != null) {
-        temperatureValueUpdateService.setValue(parseFloat(weewxMessage.getInTempC()), dateTime, createId("indoorTemperature"), "Indoor Temperature");
-      }
-      if (weewxMessage.getOutTempC() != null) {
-        temperatureValueUpdateService.setValue(parseFloat(weewxMessage.getOutTempC()), dateTime, createId("outdoorTemperature"), "Outdoor Temperature");
-      }
-      if (weewxMessage.getAppTempC() != null) {
-        temperatureValueUpdateService.setValue(parseFloat(weewxMessage.getAppTempC()), dateTime, createId("apparentTemperature"), "Apparent Temperature");
-      }
-      if (weewxMessage.getExtraTemp2C() != null) {
-        temperatureValueUpdateService.setValue(parseFloat(weewxMessage.getExtraTemp2C()), dateTime, createId("extraTemperature2"), "Extra Temperature 2");
-      }
-      if (weewxMessage.getExtraTemp3C() != null) {
-        temperatureValueUpdateService.setValue(parseFloat(weewxMessage.getExtraTemp3C()), dateTime, createId("extraTemperature3"), "Extra Temperature 3");
-      }
-      if (weewxMessage.getExtraTemp4C() != null) {
-        temperatureValueUpdateService.setValue(parseFloat(weewxMessage.getExtraTemp4C()), dateTime, createId("extraTemperature4"), "Extra Temperature 4");
-      }
-      if (weewxMessage.getExtraTemp5C() != null) {
-        temperatureValueUpdateService.setValue(parseFloat(weewxMessage.getExtraTemp5C()), dateTime, createId("extraTemperature5"), "Extra Temperature 5");
-      }
-      if (weewxMessage.getWindchillC() != null) {
-        temperatureValueUpdateService.setValue(parseFloat(weewxMessage.getWindchillC()), dateTime, createId("windchillTemperature"), "Windchill Temperature 2");
-      }
-      if (weewxMessage.getInDewpointC() != null) {
-        temperatureValueUpdateService.setValue(parseFloat(weewxMessage.getInDewpointC()), dateTime, createId("indoorDewpointTemperature"), "Indoor Dewpoint Temperature 2");
-      }
-      if (weewxMessage.getDewpointC() != null) {
-        temperatureValueUpdateService.setValue(parseFloat(weewxMessage.getDewpointC()), dateTime, createId("outdoorDewpointTemperature"), "Outdoor Dewpoint Temperature 2");
+      getStation(topic).getPacketLog().record(topic, byteBuffer);
+      if (pipeline != null) {
+        pipeline.submit(topic, ByteBuffer.allocate(byteBuffer.remaining()).put(byteBuffer.duplicate()).flip());
+      } else {
+        process(topic, byteBuffer);
       }
-      if (weewxMessage.getInHumidity() != null) {
-        humidityValueUpdateService.setValue(parseFloat(weewxMessage.getInHumidity()), dateTime, createId("indoorHumidity"), "Indoor Humidity");
-      }
-      if (weewxMessage.getOutHumidity() != null) {
-        humidityValueUpdateService.setValue(parseFloat(weewxMessage.getOutHumidity()), dateTime, createId("outdoorHumidity"), "Outdoor Humidity");
-      }
-      if (weewxMessage.getExtraHumid2() != null) {
-        humidityValueUpdateService.setValue(parseFloat(weewxMessage.getExtraHumid2()), dateTime, createId("extraHumidity2"), "Extra Humidity 2");
-      }
-      if (weewxMessage.getExtraHumid3() != null) {
-        humidityValueUpdateService.setValue(parseFloat(weewxMessage.getExtraHumid3()), dateTime, createId("extraHumidity3"), "Extra Humidity 3");
-      }
-      if (weewxMessage.getExtraHumid4() != null) {
-        humidityValueUpdateService.setValue(parseFloat(weewxMessage.getExtraHumid4()), dateTime, createId("extraHumidity4"), "Extra Humidity 4");
-      }
-      if (weewxMessage.getExtraHumid5() != null) {
-        humidityValueUpdateService.setValue(parseFloat(weewxMessage.getExtraHumid5()), dateTime, createId("extraHumidity5"), "Extra Humidity 5");
-      }
-      if (weewxMessage.getPressureMbar() != null) {
-        pressureValueUpdateService.setValue(parseFloat(weewxMessage.getPressureMbar()), dateTime, createId("airPressure"), "Air Pressure");
-      }
-      if (weewxMessage.getBarometerMbar() != null) {
-        pressureValueUpdateService.setValue(parseFloat(weewxMessage.getBarometerMbar()), dateTime, createId("barometer"), "Barometer");
-      }
-      if (weewxMessage.getAltimeterMbar() != null) {
-        pressureValueUpdateService.setValue(parseFloat(weewxMessage.getAltimeterMbar()), dateTime, createId("altimeter"), "Altimeter");
-      }
-      if (weewxMessage.getCloudbaseMeter() != null) {
-        cloudBaseValueUpdateService.setValue(parseFloat(weewxMessage.getCloudbaseMeter()), dateTime, createId("cloudBase"), "Cloud Base");
-      }
-      if (weewxMessage.getRainCm() != null) {
-        rainIntervalValueUpdateService.setValue(parseFloat(weewxMessage.getRainCm()) * 10.0f, dateTime, createId("rain"), "Rain Interval");
-      }
-      if (weewxMessage.getDayRainCm() != null) {
-        rainTodayValueUpdateService.setValue(parseFloat(weewxMessage.getDayRainCm()) * 10.0f, dateTime, createId("rain"), "Rain Today");
-      }
-      if (weewxMessage.getRainRateCmPerHour() != null) {
-        rainRateValueUpdateService.setValue(parseFloat(weewxMessage.getRainRateCmPerHour()) * 10.0f, dateTime, createId("rain"), "Rain Rate");
-      }
-      if (weewxMessage.getLuminosityLux() != null) {
-        illuminanceValueUpdateService.setValue(Float.valueOf(weewxMessage.getLuminosityLux()).intValue(), dateTime, createId("illuminance"), "Illuminance");
-      }
-      if (weewxMessage.getUv() != null) {
-        uvIndexValueUpdateService.setValue(parseFloat(weewxMessage.getUv()), dateTime, createId("uv"), "UV Index");
-      }
-      if (weewxMessage.getWindSpeedKmh() != null) {
-        windSpeedValueUpdateService.setValue(parseFloat(weewxMessage.getWindSpeedKmh()), dateTime, createId("wind"), "Wind Speed");
-      }
-      if (weewxMessage.getWindDir() != null) {
-        windDirectionValueUpdateService.setValue(parseFloat(weewxMessage.getWindDir()), dateTime, createId("wind"), "Wind Direction");
-      }
-      if (weewxMessage.getWindGustKmh() != null) {
-        windGustSpeedValueUpdateService.setValue(parseFloat(weewxMessage.getWindGustKmh()), dateTime, createId("wind"), "Wind Gust Speed");
-      }
-      if (weewxMessage.getWindGustDir() != null) {
-        windGustDirectionValueUpdateService.setValue(parseFloat(weewxMessage.getWindGustDir()), dateTime, createId("wind"), "Wind Gust Direction");
-      }
-      if (weewxMessage.getWindrunKm() != null) {
-        windRunValueUpdateService.setValue(parseDouble(weewxMessage.getWindrunKm()), dateTime, createId("wind"), "Wind Run");
-      }
-      if (weewxMessage.getLightingDistanceKm() != null) {
-        OffsetDateTime lightningDateTime = dateTime;
-        if (weewxMessage.getLastLightningDateTime() != null) {
-          Instant instant = Instant.ofEpochSecond(Double.valueOf(weewxMessage.getLastLightningDateTime()).longValue());
-          lightningDateTime = OffsetDateTime.ofInstant(instant, ZoneId.systemDefault());
+    });
+  }
+
+  /**
+   * Processes a recorded loop packet like {@link #processMessage(String, Optional)}, but neither adds it to the packet log of the station
+   * nor records its age as the lag of the packet, and the aggregation windows of the station are closed by the packets only.
+   *
+   * @param payload the packet, which must not be modified afterward
+   */
+  public void processReplayed(String topic, ByteBuffer payload) {
+    if (pipeline != null) {
+      pipeline.submit(topic, payload, false);
+    } else {
+      process(topic, payload, false);
+    }
+  }
+
+  @Override
+  public void process(String topic, ByteBuffer byteBuffer) {
+    process(topic, byteBuffer, true);
+  }
+
+  @Override
+  public void process(String topic, ByteBuffer byteBuffer, boolean live) {
+    WeewxStation station = getStation(topic);
+    WeewxLoopRecord record = new WeewxLoopRecord();
+    long start = System.nanoTime();
+    try {
+      decoder.decode(byteBuffer, record, station.getLayout());
+    } catch (IllegalArgumentException e) {
+      metrics.packetRejected(station.getDeviceId().id());
+      throw e;
+    }
+    metrics.packetDecoded(station.getDeviceId().id(), System.nanoTime() - start);
+    dispatch(station, record, live);
+  }
+
+  @Override
+  public WeewxLoopPacketDecoder.Layout layoutOf(String topic) {
+    return getStation(topic).getLayout();
+  }
+
+  @Override
+  public void process(String topic, WeewxLoopRecord record) {
+    process(topic, record, true);
+  }
+
+  @Override
+  public void process(String topic, WeewxLoopRecord record, boolean live) {
+    dispatch(getStation(topic), record, live);
+  }
+
+  /**
+   * Processes a record of an archive like a loop packet, but without recording its age as the lag of the packet. The records go through a
+   * station of their own, so the watermark, deadband, aggregation window and derived metrics of the live station are not touched.
+   *
+   * @return false if the record was rejected as late, e.g. for an aggregation window that was already published
+   */
+  public boolean processArchived(String topic, WeewxLoopRecord record) {
+    return dispatch(archiveStations.computeIfAbsent(topic, t -> newStation(t, true)), record, false);
+  }
+
+  /**
+   * Publishes the open aggregation window of the archive import into the given topic and discards its station state.
+   */
+  public void flushArchived(String topic) {
+    WeewxStation station = archiveStations.remove(topic);
+    if (station != null) {
+      station.flush();
+    }
+  }
+
+  private boolean dispatch(WeewxStation station, WeewxLoopRecord record, boolean live) {
+    long now = System.currentTimeMillis();
+    long epochSecond = now / 1000;
+    long lagMillis = -1;
+    if (record.isPresent(DATE_TIME)) {
+      epochSecond = (long) record.get(DATE_TIME);
+      if (live) {
+        lagMillis = now - (long) (record.get(DATE_TIME) * 1000);
+      }
+    }
+    deviceResolver.resolve(station.getDeviceId());
+    boolean accepted = station.dispatch(record, epochSecond, live);
+    metrics.packetDispatched(station.getDeviceId().id(), record.size(), lagMillis);
+    return accepted;
+  }
+
+  private ScheduledExecutorService startAggregationTimer(Duration window) {
+    ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("weewx-aggregation").factory());
+    timer.scheduleWithFixedDelay(() -> {
+      long now = System.currentTimeMillis() / 1000;
+      for (WeewxStation station : stations.values()) {
+        try {
+          station.flushEnded(now);
+        } catch (RuntimeException e) {
+          log.warn("failed to publish the aggregation window of weewx station {}", station.getDeviceId().id(), e);
         }
-        lightningDistanceValueUpdateService.setValue(Math.round(parseFloat(weewxMessage.getLightingDistanceKm())), lightningDateTime, createId("lightning"), "Lightning Distance");
-      }
-      if (weewxMessage.getLightingStrikeCount() != null) {
-        lightningCountValueUpdateService.setValue(Math.round(parseFloat(weewxMessage.getLightingStrikeCount())), dateTime, createId("lightning"), "Lightning Count");
       }
-    });
+    }, window.toMillis(), window.toMillis(), TimeUnit.MILLISECONDS);
+    return timer;
   }
 
-  private DevicePropertyId createId(String id) {
-    return new DevicePropertyId(DEVICE_ID, id);
+  /**
+   * Publishes the open aggregation window of every station, e.g. at the end of a replay or an import.
+   */
+  public void flush() {
+    for (WeewxStation station : stations.values()) {
+      station.flush();
+    }
+  }
+
+  private WeewxStation getStation(String topic) {
+    WeewxStation station = stations.get(topic);
+    if (station != null) {
+      return station;
+    }
+    return stations.computeIfAbsent(topic, t -> newStation(t, false));
+  }
+
+  private WeewxStation newStation(String topic, boolean archive) {
+    DeviceId deviceId = new DeviceId(stationRouter.getStationId(topic), WeewxDeviceType.WEEWX);
+    if (!archive) {
+      log.info("new weewx station {} on topic {}", deviceId.id(), topic);
+    }
+    return new WeewxStation(topic, deviceId, mappings, valueUpdaters, properties, batchSink, history == null ? null : history::add, archive);
+  }
+
+  public Collection<WeewxStation> getStations() {
+    return stations.values();
+  }
+
+  public Optional<WeewxIngestionPipeline> getPipeline() {
+    return Optional.ofNullable(pipeline);
+  }
+
+  public Optional<WeewxHistory> getHistory() {
+    return Optional.ofNullable(history);
+  }
+
+  public Optional<WeewxSnapshot> getSnapshot() {
+    return Optional.ofNullable(snapshot);
+  }
+
+  @Override
+  public void close() {
+    if (pipeline != null) {
+      pipeline.close();
+    }
+    if (aggregationTimer != null) {
+      aggregationTimer.shutdown();
+      try {
+        aggregationTimer.awaitTermination(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    flush();
+    if (snapshot != null) {
+      snapshot.close();
+    }
   }
 }
\ No newline at end of file
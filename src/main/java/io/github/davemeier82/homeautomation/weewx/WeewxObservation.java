@@ -0,0 +1,144 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.weewx;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The weewx loop packet keys known to this module. The ordinal is used as slot index into the decoded value array.
+ */
+public enum WeewxObservation {
+  DATE_TIME("dateTime"),
+  IN_TEMP_C("inTemp_C"),
+  OUT_TEMP_C("outTemp_C"),
+  IN_HUMIDITY("inHumidity"),
+  OUT_HUMIDITY("outHumidity"),
+  PRESSURE_MBAR("pressure_mbar"),
+  RELBAROMETER("relbarometer"),
+  WH32_BATT("wh32_batt"),
+  WH32_SIG("wh32_sig"),
+  ALTIMETER_MBAR("altimeter_mbar"),
+  APP_TEMP_C("appTemp_C"),
+  BAROMETER_MBAR("barometer_mbar"),
+  CLOUDBASE_METER("cloudbase_meter"),
+  DEWPOINT_C("dewpoint_C"),
+  HEATINDEX_C("heatindex_C"),
+  HUMIDEX_C("humidex_C"),
+  IN_DEWPOINT_C("inDewpoint_C"),
+  RAIN_RATE_CM_PER_HOUR("rainRate_cm_per_hour"),
+  WINDCHILL_C("windchill_C"),
+  WINDRUN_KM("windrun_km"),
+  INTERVAL_MINUTE("interval_minute"),
+  HOUR_RAIN_CM("hourRain_cm"),
+  RAIN24_CM("rain24_cm"),
+  DAY_RAIN_CM("dayRain_cm"),
+  US_UNITS("usUnits"),
+  LUMINOSITY_LUX("luminosity_lux"),
+  UVRADIATION("uvradiation"),
+  UV("UV"),
+  RAIN_CM("rain_cm", true),
+  STORM_RAIN_CM("stormRain_cm"),
+  WEEK_RAIN_CM("weekRain_cm"),
+  MONTH_RAIN_CM("monthRain_cm"),
+  YEAR_RAIN_CM("yearRain_cm"),
+  WIND_SPEED_KPH("windSpeed_kph"),
+  WIND_DIR("windDir"),
+  WIND_GUST_KPH("windGust_kph"),
+  WIND_GUST_DIR("windGustDir"),
+  DAYMAXWIND("daymaxwind"),
+  WH65_SIG("wh65_sig"),
+  EXTRA_TEMP2_C("extraTemp2_C"),
+  EXTRA_TEMP3_C("extraTemp3_C"),
+  EXTRA_TEMP4_C("extraTemp4_C"),
+  EXTRA_TEMP5_C("extraTemp5_C"),
+  EXTRA_HUMID2("extraHumid2"),
+  EXTRA_HUMID3("extraHumid3"),
+  EXTRA_HUMID4("extraHumid4"),
+  EXTRA_HUMID5("extraHumid5"),
+  WH31_CH2_BATT("wh31_ch2_batt"),
+  WH31_CH2_SIG("wh31_ch2_sig"),
+  WH40_BATT("wh40_batt"),
+  WH40_SIG("wh40_sig"),
+  WH68_BATT("wh68_batt"),
+  WH68_SIG("wh68_sig"),
+  LIGHTNING_DISTANCE_KM("lightning_distance_km"),
+  LIGHTNING_STRIKE_COUNT("lightning_strike_count_count", true),
+  LIGHTNING_LAST_DET_TIME("lightning_last_det_time"),
+  RAIN_LAST_HOUR_CM("rainLastHour_cm", false, true),
+  RAIN_LAST_24_HOURS_CM("rainLast24Hours_cm", false, true),
+  LIGHTNING_STRIKES_LAST_10_MINUTES("lightningStrikesLast10Minutes_count", false, true),
+  LIGHTNING_STRIKES_LAST_30_MINUTES("lightningStrikesLast30Minutes_count", false, true);
+
+  public static final int COUNT = values().length;
+
+  private final String key;
+  private final boolean delta;
+  private final boolean derived;
+  private final WeewxUnit unit;
+
+  WeewxObservation(String key) {
+    this(key, false);
+  }
+
+  WeewxObservation(String key, boolean delta) {
+    this(key, delta, false);
+  }
+
+  WeewxObservation(String key, boolean delta, boolean derived) {
+    this.key = key;
+    this.delta = delta;
+    this.derived = derived;
+    this.unit = WeewxUnit.ofKey(key);
+  }
+
+  public static Optional<WeewxObservation> getByKey(String key) {
+    return Arrays.stream(values()).filter(o -> o.key.equals(key)).findAny();
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  /**
+   * @return the unit of the key in the METRIC unit system, or null if the key has none
+   */
+  public WeewxUnit getUnit() {
+    return unit;
+  }
+
+  /**
+   * @return the key without its unit, as used in the weewx archive and in packets published without unit labels
+   */
+  public String getName() {
+    return unit == null ? key : key.substring(0, key.length() - unit.getSuffix().length() - 1);
+  }
+
+  /**
+   * @return true if the observation is an amount since the previous loop packet, e.g. the rain of the interval
+   */
+  public boolean isDelta() {
+    return delta;
+  }
+
+  /**
+   * @return true if the observation is not sent by weewx but computed from the previous packets, see {@link WeewxDerivedMetrics}
+   */
+  public boolean isDerived() {
+    return derived;
+  }
+}
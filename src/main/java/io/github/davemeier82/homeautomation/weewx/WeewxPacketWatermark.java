@@ -0,0 +1,165 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Tracks the newest packet {@code dateTime} of a station, so that QoS 1 redeliveries and replays after a reconnect do not rewind the current
+ * values. Packets within the reorder window below the watermark are accepted once, packets older than the window are late. Each second of
+ * the window is one bit, so a check is O(1) without allocation.
+ * <p>
+ * A packet that is behind the watermark by more than the reset threshold is late like any other, a single one is most likely a stale
+ * redelivery from the broker. Only when the watermark is ahead of the wall clock and the packet agrees with it, or after a run of such
+ * packets, it is taken as a jump of the station clock, e.g. after it was set back or the station was replaced. The watermark is then
+ * re-anchored to that packet, so the station is not rejected until it catches up.
+ * <p>
+ * Not thread-safe, used under the lock of the {@link WeewxStation}.
+ */
+public final class WeewxPacketWatermark {
+  private static final Logger log = LoggerFactory.getLogger(WeewxPacketWatermark.class);
+
+  public enum LatePolicy {
+    /**
+     * Drops late packets.
+     */
+    DISCARD,
+    /**
+     * Adds the values of late packets to the history, if enabled, without publishing them.
+     */
+    HISTORY
+  }
+
+  public enum Verdict {
+    ACCEPT,
+    DUPLICATE,
+    LATE
+  }
+
+  private final long window;
+  private final long resetThreshold;
+  private final int resetAfter;
+  private final Clock clock;
+  private final long[] seen;
+  private long watermark = Long.MIN_VALUE;
+  private int behind;
+  private long resets;
+
+  public WeewxPacketWatermark(Duration reorderWindow) {
+    this(reorderWindow, Duration.ZERO, 1, Clock.systemUTC());
+  }
+
+  /**
+   * @param resetThreshold how far a packet has to be behind the watermark to re-anchor it, or zero to never re-anchor
+   * @param resetAfter     the number of consecutive packets behind the reset threshold that re-anchor the watermark
+   * @param clock          the wall clock a packet behind the reset threshold is compared to
+   */
+  public WeewxPacketWatermark(Duration reorderWindow, Duration resetThreshold, int resetAfter, Clock clock) {
+    if (reorderWindow.isNegative()) {
+      throw new IllegalArgumentException("reorder window must not be negative");
+    }
+    if (resetThreshold.isPositive() && resetThreshold.compareTo(reorderWindow) <= 0) {
+      throw new IllegalArgumentException("reset threshold must be longer than the reorder window");
+    }
+    if (resetAfter < 1) {
+      throw new IllegalArgumentException("reset after must be at least 1");
+    }
+    window = reorderWindow.toSeconds();
+    this.resetThreshold = resetThreshold.isPositive() ? resetThreshold.toSeconds() : Long.MAX_VALUE;
+    this.resetAfter = resetAfter;
+    this.clock = clock;
+    seen = new long[(int) ((window + 64) >>> 6)];
+  }
+
+  public Verdict check(long epochSecond) {
+    if (watermark == Long.MIN_VALUE || epochSecond > watermark) {
+      behind = 0;
+      advance(epochSecond);
+      mark(epochSecond);
+      return Verdict.ACCEPT;
+    }
+    if (watermark - epochSecond <= resetThreshold) {
+      behind = 0;
+    } else if (++behind >= resetAfter || agreesWithClock(epochSecond)) {
+      log.warn("weewx packet dateTime {} is {} s behind the watermark, re-anchoring", epochSecond, watermark - epochSecond);
+      behind = 0;
+      resets++;
+      watermark = Long.MIN_VALUE;
+      advance(epochSecond);
+      mark(epochSecond);
+      return Verdict.ACCEPT;
+    }
+    if (watermark - epochSecond > window) {
+      return Verdict.LATE;
+    }
+    if (isMarked(epochSecond)) {
+      return Verdict.DUPLICATE;
+    }
+    mark(epochSecond);
+    return Verdict.ACCEPT;
+  }
+
+  private boolean agreesWithClock(long epochSecond) {
+    long now = clock.instant().getEpochSecond();
+    return watermark - now > resetThreshold && Math.abs(now - epochSecond) <= resetThreshold;
+  }
+
+  private void advance(long epochSecond) {
+    long bits = (long) seen.length << 6;
+    if (watermark == Long.MIN_VALUE || epochSecond - watermark >= bits) {
+      Arrays.fill(seen, 0);
+    } else {
+      for (long second = watermark + 1; second <= epochSecond; second++) {
+        int bit = bit(second);
+        seen[bit >>> 6] &= ~(1L << bit);
+      }
+    }
+    watermark = epochSecond;
+  }
+
+  private void mark(long epochSecond) {
+    int bit = bit(epochSecond);
+    seen[bit >>> 6] |= 1L << bit;
+  }
+
+  private boolean isMarked(long epochSecond) {
+    int bit = bit(epochSecond);
+    return (seen[bit >>> 6] & (1L << bit)) != 0;
+  }
+
+  private int bit(long epochSecond) {
+    return (int) Math.floorMod(epochSecond, (long) seen.length << 6);
+  }
+
+  /**
+   * @return the number of times the watermark was re-anchored after a clock jump
+   */
+  public long getResetCount() {
+    return resets;
+  }
+
+  /**
+   * @return the newest accepted epoch second, or {@link Long#MIN_VALUE} before the first packet
+   */
+  public long getWatermark() {
+    return watermark;
+  }
+}
@@ -0,0 +1,594 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuration of the weewx integration.
+ * <p>
+ * Several weewx instances can publish below the subscribed topic. Each topic becomes its own device, named after the topic suffix or a
+ * configured station id, e.g.
+ * <pre>
+ * homeautomation.weewx.topic=weather/loop/#
+ * homeautomation.weewx.stations[weather/loop/davis]=roof
+ * </pre>
+ * A device is looked up in the device repository again after the revalidation interval, so a device that was deleted meanwhile is created
+ * again. An interval of zero keeps the devices until they are invalidated.
+ * <pre>
+ * homeautomation.weewx.device-revalidation=5m
+ * </pre>
+ * <p>
+ * Observation mappings are keyed by the weewx key, e.g.
+ * <pre>
+ * homeautomation.weewx.mappings[outTemp_C].display-name=Garden Temperature
+ * homeautomation.weewx.mappings[heatindex_C].type=TEMPERATURE
+ * homeautomation.weewx.mappings[heatindex_C].property-id=heatIndex
+ * homeautomation.weewx.mappings[extraTemp5_C].enabled=false
+ * </pre>
+ * Observations are always mapped by their METRIC key. Packets of stations in the US or METRICWX unit system, e.g. with {@code outTemp_F}
+ * or {@code rain_mm}, are converted into METRIC while they are decoded.
+ * Any other key of the loop packet can be mapped the same way, e.g. for a soil moisture sensor. Only mapped keys are decoded.
+ * <pre>
+ * homeautomation.weewx.mappings[soilMoist1].type=HUMIDITY
+ * homeautomation.weewx.mappings[soilMoist1].property-id=soilMoisture1
+ * </pre>
+ * Unchanged values can be dropped before they reach the value update services with a deadband in the published unit, e.g.
+ * <pre>
+ * homeautomation.weewx.deadband.enabled=true
+ * homeautomation.weewx.deadband.relative=0.01
+ * homeautomation.weewx.deadband.heartbeat=15m
+ * homeautomation.weewx.deadband.observations[outTemp_C].absolute=0.1
+ * </pre>
+ * The MQTT callback can be decoupled from decoding and publishing with a bounded ingestion pipeline, e.g.
+ * <pre>
+ * homeautomation.weewx.pipeline.enabled=true
+ * homeautomation.weewx.pipeline.capacity=64
+ * homeautomation.weewx.pipeline.overflow-policy=COALESCE_LATEST
+ * </pre>
+ * Several stations are processed in parallel with more workers. Each station is assigned to one worker, so its packets stay in order, e.g.
+ * <pre>
+ * homeautomation.weewx.pipeline.workers=4
+ * </pre>
+ * The packets can be aggregated over a tumbling window before they are published, e.g.
+ * <pre>
+ * homeautomation.weewx.aggregation.enabled=true
+ * homeautomation.weewx.aggregation.window=1m
+ * homeautomation.weewx.aggregation.mode=AVERAGE
+ * homeautomation.weewx.aggregation.observations[outTemp_C]=LAST
+ * </pre>
+ * The window of a station that stopped sending packets is published once the grace period after its end passed. Later packets of that
+ * window are late.
+ * <pre>
+ * homeautomation.weewx.aggregation.grace=10s
+ * </pre>
+ * Rolling rain and lightning sums are added to the packets as derived observations with
+ * <pre>
+ * homeautomation.weewx.derived-metrics.enabled=true
+ * </pre>
+ * The recently published values of each property can be kept in memory, e.g. 24 hours of packets every 2.5 seconds in about 400 KiB per
+ * property, and read through the {@code weewx} actuator endpoint, with
+ * <pre>
+ * homeautomation.weewx.history.enabled=true
+ * homeautomation.weewx.history.capacity=34560
+ * </pre>
+ * The latest values can be written to a snapshot file and published again once the application is ready with
+ * <pre>
+ * homeautomation.weewx.snapshot.enabled=true
+ * homeautomation.weewx.snapshot.file=/var/lib/homeautomation/weewx-snapshot.bin
+ * homeautomation.weewx.snapshot.interval=1m
+ * </pre>
+ * Duplicate packets, e.g. redelivered after a reconnect, and packets older than the newest one by more than the reorder window can be
+ * rejected by their {@code dateTime} with
+ * <pre>
+ * homeautomation.weewx.watermark.enabled=true
+ * homeautomation.weewx.watermark.reorder-window=10s
+ * homeautomation.weewx.watermark.late-policy=HISTORY
+ * </pre>
+ * Packets older than the newest one by more than the reset threshold, e.g. after the station clock was set back, re-anchor the watermark
+ * instead of being rejected, once a run of them arrived or right away if the newest one is ahead of the wall clock. A single old packet is
+ * taken as a stale redelivery and stays rejected. A threshold of zero disables it.
+ * <pre>
+ * homeautomation.weewx.watermark.reset-threshold=1h
+ * homeautomation.weewx.watermark.reset-after=3
+ * </pre>
+ * At debug level, every Nth raw packet of a station is logged. The last raw packets of each station can be kept for the {@code weewx}
+ * actuator endpoint with
+ * <pre>
+ * homeautomation.weewx.diagnostics.log-sample-rate=100
+ * homeautomation.weewx.diagnostics.enabled=true
+ * homeautomation.weewx.diagnostics.recent-packets=16
+ * </pre>
+ */
+@ConfigurationProperties("homeautomation.weewx")
+public class WeewxProperties {
+  private String topic = "weather/loop/#";
+  private String defaultStationId = "weather";
+  private Map<String, String> stations = new LinkedHashMap<>();
+  private Duration deviceRevalidation = Duration.ofMinutes(5);
+  private Map<String, Mapping> mappings = new LinkedHashMap<>();
+  private Deadband deadband = new Deadband();
+  private Pipeline pipeline = new Pipeline();
+  private Aggregation aggregation = new Aggregation();
+  private DerivedMetrics derivedMetrics = new DerivedMetrics();
+  private History history = new History();
+  private Snapshot snapshot = new Snapshot();
+  private Watermark watermark = new Watermark();
+  private Diagnostics diagnostics = new Diagnostics();
+
+  public String getTopic() {
+    return topic;
+  }
+
+  public void setTopic(String topic) {
+    this.topic = topic;
+  }
+
+  public String getDefaultStationId() {
+    return defaultStationId;
+  }
+
+  public void setDefaultStationId(String defaultStationId) {
+    this.defaultStationId = defaultStationId;
+  }
+
+  public Duration getDeviceRevalidation() {
+    return deviceRevalidation;
+  }
+
+  public void setDeviceRevalidation(Duration deviceRevalidation) {
+    this.deviceRevalidation = deviceRevalidation;
+  }
+
+  public Map<String, String> getStations() {
+    return stations;
+  }
+
+  public void setStations(Map<String, String> stations) {
+    this.stations = stations;
+  }
+
+  public Map<String, Mapping> getMappings() {
+    return mappings;
+  }
+
+  public void setMappings(Map<String, Mapping> mappings) {
+    this.mappings = mappings;
+  }
+
+  public Deadband getDeadband() {
+    return deadband;
+  }
+
+  public void setDeadband(Deadband deadband) {
+    this.deadband = deadband;
+  }
+
+  public Pipeline getPipeline() {
+    return pipeline;
+  }
+
+  public void setPipeline(Pipeline pipeline) {
+    this.pipeline = pipeline;
+  }
+
+  public Aggregation getAggregation() {
+    return aggregation;
+  }
+
+  public void setAggregation(Aggregation aggregation) {
+    this.aggregation = aggregation;
+  }
+
+  public DerivedMetrics getDerivedMetrics() {
+    return derivedMetrics;
+  }
+
+  public void setDerivedMetrics(DerivedMetrics derivedMetrics) {
+    this.derivedMetrics = derivedMetrics;
+  }
+
+  public History getHistory() {
+    return history;
+  }
+
+  public void setHistory(History history) {
+    this.history = history;
+  }
+
+  public Snapshot getSnapshot() {
+    return snapshot;
+  }
+
+  public void setSnapshot(Snapshot snapshot) {
+    this.snapshot = snapshot;
+  }
+
+  public Watermark getWatermark() {
+    return watermark;
+  }
+
+  public void setWatermark(Watermark watermark) {
+    this.watermark = watermark;
+  }
+
+  public Diagnostics getDiagnostics() {
+    return diagnostics;
+  }
+
+  public void setDiagnostics(Diagnostics diagnostics) {
+    this.diagnostics = diagnostics;
+  }
+
+  public static class Mapping {
+    private boolean enabled = true;
+    private WeewxPropertyType type;
+    private String propertyId;
+    private String displayName;
+    private Double scale;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public WeewxPropertyType getType() {
+      return type;
+    }
+
+    public void setType(WeewxPropertyType type) {
+      this.type = type;
+    }
+
+    public String getPropertyId() {
+      return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+      this.propertyId = propertyId;
+    }
+
+    public String getDisplayName() {
+      return displayName;
+    }
+
+    public void setDisplayName(String displayName) {
+      this.displayName = displayName;
+    }
+
+    public Double getScale() {
+      return scale;
+    }
+
+    public void setScale(Double scale) {
+      this.scale = scale;
+    }
+  }
+
+  public static class Deadband {
+    private boolean enabled = false;
+    private double absolute = 0.0;
+    private double relative = 0.0;
+    private Duration heartbeat = Duration.ofMinutes(15);
+    private Map<String, Band> observations = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public double getAbsolute() {
+      return absolute;
+    }
+
+    public void setAbsolute(double absolute) {
+      this.absolute = absolute;
+    }
+
+    public double getRelative() {
+      return relative;
+    }
+
+    public void setRelative(double relative) {
+      this.relative = relative;
+    }
+
+    public Duration getHeartbeat() {
+      return heartbeat;
+    }
+
+    public void setHeartbeat(Duration heartbeat) {
+      this.heartbeat = heartbeat;
+    }
+
+    public Map<String, Band> getObservations() {
+      return observations;
+    }
+
+    public void setObservations(Map<String, Band> observations) {
+      this.observations = observations;
+    }
+  }
+
+  public static class Band {
+    private Double absolute;
+    private Double relative;
+
+    public Double getAbsolute() {
+      return absolute;
+    }
+
+    public void setAbsolute(Double absolute) {
+      this.absolute = absolute;
+    }
+
+    public Double getRelative() {
+      return relative;
+    }
+
+    public void setRelative(Double relative) {
+      this.relative = relative;
+    }
+  }
+
+  public static class Pipeline {
+    private boolean enabled = false;
+    private int capacity = 64;
+    private WeewxIngestionPipeline.OverflowPolicy overflowPolicy = WeewxIngestionPipeline.OverflowPolicy.DROP_OLDEST;
+    private int workers = 1;
+    private boolean virtualThreads = true;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getCapacity() {
+      return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+      this.capacity = capacity;
+    }
+
+    public WeewxIngestionPipeline.OverflowPolicy getOverflowPolicy() {
+      return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(WeewxIngestionPipeline.OverflowPolicy overflowPolicy) {
+      this.overflowPolicy = overflowPolicy;
+    }
+
+    public int getWorkers() {
+      return workers;
+    }
+
+    public void setWorkers(int workers) {
+      this.workers = workers;
+    }
+
+    public boolean isVirtualThreads() {
+      return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+      this.virtualThreads = virtualThreads;
+    }
+  }
+
+  public static class Aggregation {
+    private boolean enabled = false;
+    private Duration window = Duration.ofMinutes(1);
+    private Duration grace = Duration.ofSeconds(10);
+    private WeewxAggregationMode mode = WeewxAggregationMode.AVERAGE;
+    private Map<String, WeewxAggregationMode> observations = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public Duration getWindow() {
+      return window;
+    }
+
+    public void setWindow(Duration window) {
+      this.window = window;
+    }
+
+    public Duration getGrace() {
+      return grace;
+    }
+
+    public void setGrace(Duration grace) {
+      this.grace = grace;
+    }
+
+    public WeewxAggregationMode getMode() {
+      return mode;
+    }
+
+    public void setMode(WeewxAggregationMode mode) {
+      this.mode = mode;
+    }
+
+    public Map<String, WeewxAggregationMode> getObservations() {
+      return observations;
+    }
+
+    public void setObservations(Map<String, WeewxAggregationMode> observations) {
+      this.observations = observations;
+    }
+  }
+
+  public static class DerivedMetrics {
+    private boolean enabled = false;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+  }
+
+  public static class History {
+    private boolean enabled = false;
+    private int capacity = 34560;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getCapacity() {
+      return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+      this.capacity = capacity;
+    }
+  }
+
+  public static class Snapshot {
+    private boolean enabled = false;
+    private Path file = Path.of("weewx-snapshot.bin");
+    private Duration interval = Duration.ofMinutes(1);
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public Path getFile() {
+      return file;
+    }
+
+    public void setFile(Path file) {
+      this.file = file;
+    }
+
+    public Duration getInterval() {
+      return interval;
+    }
+
+    public void setInterval(Duration interval) {
+      this.interval = interval;
+    }
+  }
+
+  public static class Watermark {
+    private boolean enabled = false;
+    private Duration reorderWindow = Duration.ofSeconds(10);
+    private WeewxPacketWatermark.LatePolicy latePolicy = WeewxPacketWatermark.LatePolicy.DISCARD;
+    private Duration resetThreshold = Duration.ofHours(1);
+    private int resetAfter = 3;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public Duration getReorderWindow() {
+      return reorderWindow;
+    }
+
+    public void setReorderWindow(Duration reorderWindow) {
+      this.reorderWindow = reorderWindow;
+    }
+
+    public WeewxPacketWatermark.LatePolicy getLatePolicy() {
+      return latePolicy;
+    }
+
+    public void setLatePolicy(WeewxPacketWatermark.LatePolicy latePolicy) {
+      this.latePolicy = latePolicy;
+    }
+
+    public Duration getResetThreshold() {
+      return resetThreshold;
+    }
+
+    public void setResetThreshold(Duration resetThreshold) {
+      this.resetThreshold = resetThreshold;
+    }
+
+    public int getResetAfter() {
+      return resetAfter;
+    }
+
+    public void setResetAfter(int resetAfter) {
+      this.resetAfter = resetAfter;
+    }
+  }
+
+  public static class Diagnostics {
+    private boolean enabled = false;
+    private int recentPackets = 16;
+    private int logSampleRate = 1;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getRecentPackets() {
+      return recentPackets;
+    }
+
+    public void setRecentPackets(int recentPackets) {
+      this.recentPackets = recentPackets;
+    }
+
+    public int getLogSampleRate() {
+      return logSampleRate;
+    }
+
+    public void setLogSampleRate(int logSampleRate) {
+      this.logSampleRate = logSampleRate;
+    }
+  }
+}
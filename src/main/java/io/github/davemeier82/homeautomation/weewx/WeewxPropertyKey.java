@@ -0,0 +1,25 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+
+/**
+ * Identifies a published value. Several values of a device share one {@link DevicePropertyId}, e.g. wind speed and wind direction both
+ * belong to {@code wind}, so the id is only unique together with the type.
+ */
+public record WeewxPropertyKey(DevicePropertyId devicePropertyId, WeewxPropertyType type) {
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+/**
+ * Maps a weewx observation to a device property.
+ *
+ * @param observation the observation in the loop packet, or {@code null} for a key that is not a {@link WeewxObservation}
+ * @param type        the kind of property, selects the value update service
+ * @param propertyId  the id of the device property
+ * @param displayName the display name of the device property
+ * @param scale       the factor the observation is multiplied with before publishing, e.g. 10 for cm to mm
+ * @param timestamp   the observation that holds the timestamp of the value, or {@code null} to use the packet time
+ * @param extraKey    the key in the loop packet if the observation is {@code null}
+ */
+public record WeewxPropertyMapping(
+    WeewxObservation observation,
+    WeewxPropertyType type,
+    String propertyId,
+    String displayName,
+    double scale,
+    WeewxObservation timestamp,
+    String extraKey
+) {
+
+  public WeewxPropertyMapping(WeewxObservation observation, WeewxPropertyType type, String propertyId, String displayName) {
+    this(observation, type, propertyId, displayName, 1.0, null);
+  }
+
+  public WeewxPropertyMapping(WeewxObservation observation, WeewxPropertyType type, String propertyId, String displayName, double scale, WeewxObservation timestamp) {
+    this(observation, type, propertyId, displayName, scale, timestamp, null);
+  }
+
+  /**
+   * @return the key of the observation in the loop packet
+   */
+  public String key() {
+    return observation != null ? observation.getKey() : extraKey;
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.github.davemeier82.homeautomation.weewx.WeewxObservation.*;
+import static io.github.davemeier82.homeautomation.weewx.WeewxPropertyType.*;
+
+public final class WeewxPropertyMappings {
+
+  private WeewxPropertyMappings() {
+  }
+
+  public static List<WeewxPropertyMapping> defaults() {
+    return List.of(
+        new WeewxPropertyMapping(IN_TEMP_C, TEMPERATURE, "indoorTemperature", "Indoor Temperature"),
+        new WeewxPropertyMapping(OUT_TEMP_C, TEMPERATURE, "outdoorTemperature", "Outdoor Temperature"),
+        new WeewxPropertyMapping(APP_TEMP_C, TEMPERATURE, "apparentTemperature", "Apparent Temperature"),
+        new WeewxPropertyMapping(EXTRA_TEMP2_C, TEMPERATURE, "extraTemperature2", "Extra Temperature 2"),
+        new WeewxPropertyMapping(EXTRA_TEMP3_C, TEMPERATURE, "extraTemperature3", "Extra Temperature 3"),
+        new WeewxPropertyMapping(EXTRA_TEMP4_C, TEMPERATURE, "extraTemperature4", "Extra Temperature 4"),
+        new WeewxPropertyMapping(EXTRA_TEMP5_C, TEMPERATURE, "extraTemperature5", "Extra Temperature 5"),
+        new WeewxPropertyMapping(WINDCHILL_C, TEMPERATURE, "windchillTemperature", "Windchill Temperature 2"),
+        new WeewxPropertyMapping(IN_DEWPOINT_C, TEMPERATURE, "indoorDewpointTemperature", "Indoor Dewpoint Temperature 2"),
+        new WeewxPropertyMapping(DEWPOINT_C, TEMPERATURE, "outdoorDewpointTemperature", "Outdoor Dewpoint Temperature 2"),
+        new WeewxPropertyMapping(IN_HUMIDITY, HUMIDITY, "indoorHumidity", "Indoor Humidity"),
+        new WeewxPropertyMapping(OUT_HUMIDITY, HUMIDITY, "outdoorHumidity", "Outdoor Humidity"),
+        new WeewxPropertyMapping(EXTRA_HUMID2, HUMIDITY, "extraHumidity2", "Extra Humidity 2"),
+        new WeewxPropertyMapping(EXTRA_HUMID3, HUMIDITY, "extraHumidity3", "Extra Humidity 3"),
+        new WeewxPropertyMapping(EXTRA_HUMID4, HUMIDITY, "extraHumidity4", "Extra Humidity 4"),
+        new WeewxPropertyMapping(EXTRA_HUMID5, HUMIDITY, "extraHumidity5", "Extra Humidity 5"),
+        new WeewxPropertyMapping(PRESSURE_MBAR, PRESSURE, "airPressure", "Air Pressure"),
+        new WeewxPropertyMapping(BAROMETER_MBAR, PRESSURE, "barometer", "Barometer"),
+        new WeewxPropertyMapping(ALTIMETER_MBAR, PRESSURE, "altimeter", "Altimeter"),
+        new WeewxPropertyMapping(CLOUDBASE_METER, CLOUD_BASE, "cloudBase", "Cloud Base"),
+        new WeewxPropertyMapping(RAIN_CM, RAIN_INTERVAL, "rain", "Rain Interval", 10.0, null),
+        new WeewxPropertyMapping(DAY_RAIN_CM, RAIN_TODAY, "rain", "Rain Today", 10.0, null),
+        new WeewxPropertyMapping(RAIN_RATE_CM_PER_HOUR, RAIN_RATE, "rain", "Rain Rate", 10.0, null),
+        new WeewxPropertyMapping(LUMINOSITY_LUX, ILLUMINANCE, "illuminance", "Illuminance"),
+        new WeewxPropertyMapping(UV, UV_INDEX, "uv", "UV Index"),
+        new WeewxPropertyMapping(WIND_SPEED_KPH, WIND_SPEED, "wind", "Wind Speed"),
+        new WeewxPropertyMapping(WIND_DIR, WIND_DIRECTION, "wind", "Wind Direction"),
+        new WeewxPropertyMapping(WIND_GUST_KPH, WIND_GUST_SPEED, "wind", "Wind Gust Speed"),
+        new WeewxPropertyMapping(WIND_GUST_DIR, WIND_GUST_DIRECTION, "wind", "Wind Gust Direction"),
+        new WeewxPropertyMapping(WINDRUN_KM, WIND_RUN, "wind", "Wind Run"),
+        new WeewxPropertyMapping(LIGHTNING_DISTANCE_KM, LIGHTNING_DISTANCE, "lightning", "Lightning Distance", 1.0, LIGHTNING_LAST_DET_TIME),
+        new WeewxPropertyMapping(LIGHTNING_STRIKE_COUNT, LIGHTNING_COUNT, "lightning", "Lightning Count"),
+        new WeewxPropertyMapping(RAIN_LAST_HOUR_CM, RAIN_INTERVAL, "rainLastHour", "Rain Last Hour", 10.0, null),
+        new WeewxPropertyMapping(RAIN_LAST_24_HOURS_CM, RAIN_INTERVAL, "rainLast24Hours", "Rain Last 24 Hours", 10.0, null),
+        new WeewxPropertyMapping(LIGHTNING_STRIKES_LAST_10_MINUTES, LIGHTNING_COUNT, "lightningLast10Minutes", "Lightning Count Last 10 Minutes"),
+        new WeewxPropertyMapping(LIGHTNING_STRIKES_LAST_30_MINUTES, LIGHTNING_COUNT, "lightningLast30Minutes", "Lightning Count Last 30 Minutes")
+    );
+  }
+
+  /**
+   * Applies the configured mappings on top of the given ones. A configured mapping replaces the attributes it sets on the mapping of the same
+   * key, adds a new mapping if there is none, or removes it if it is disabled. Keys that are not a {@link WeewxObservation} become extra
+   * mappings, whose values are only decoded because they are mapped.
+   */
+  public static List<WeewxPropertyMapping> withOverrides(List<WeewxPropertyMapping> mappings, Map<String, WeewxProperties.Mapping> overrides) {
+    Map<String, WeewxPropertyMapping> byKey = new LinkedHashMap<>();
+    mappings.forEach(mapping -> byKey.put(mapping.key(), mapping));
+    overrides.forEach((key, override) -> {
+      if (!override.isEnabled()) {
+        byKey.remove(key);
+        return;
+      }
+      WeewxPropertyMapping mapping = byKey.get(key);
+      if (mapping == null && (override.getType() == null || override.getPropertyId() == null)) {
+        throw new IllegalArgumentException("type and property-id are required for the weewx observation " + key);
+      }
+      WeewxObservation observation = WeewxObservation.getByKey(key).orElse(null);
+      byKey.put(key, new WeewxPropertyMapping(
+          observation,
+          override.getType() != null ? override.getType() : mapping.type(),
+          override.getPropertyId() != null ? override.getPropertyId() : mapping.propertyId(),
+          override.getDisplayName() != null ? override.getDisplayName() : mapping == null ? override.getPropertyId() : mapping.displayName(),
+          override.getScale() != null ? override.getScale() : mapping == null ? 1.0 : mapping.scale(),
+          mapping == null ? null : mapping.timestamp(),
+          observation == null ? key : null
+      ));
+    });
+    return List.copyOf(byKey.values());
+  }
+
+  /**
+   * @return the distinct keys of the extra mappings in order, the decoder stores the value of the n-th key in the slot
+   * {@link WeewxObservation#COUNT} + n of the {@link WeewxLoopRecord}
+   */
+  public static List<String> extraKeys(List<WeewxPropertyMapping> mappings) {
+    return mappings.stream().filter(mapping -> mapping.observation() == null).map(WeewxPropertyMapping::extraKey).distinct().toList();
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+/**
+ * The kind of device property a weewx observation is published as. Each type is backed by one of the core value update services.
+ */
+public enum WeewxPropertyType {
+  TEMPERATURE,
+  HUMIDITY,
+  PRESSURE,
+  CLOUD_BASE,
+  RAIN_INTERVAL,
+  RAIN_TODAY,
+  RAIN_RATE,
+  ILLUMINANCE,
+  UV_INDEX,
+  WIND_SPEED,
+  WIND_DIRECTION,
+  WIND_GUST_SPEED,
+  WIND_GUST_DIRECTION,
+  WIND_RUN,
+  LIGHTNING_COUNT,
+  LIGHTNING_DISTANCE
+}
\ No newline at end of file
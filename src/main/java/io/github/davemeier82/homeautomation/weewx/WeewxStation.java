@@ -0,0 +1,233 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.weewx.diagnostics.WeewxPacketLog;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.github.davemeier82.homeautomation.weewx.WeewxObservation.DATE_TIME;
+
+/**
+ * A weewx instance publishing to one topic, with its own device, dispatch table, watermark, deadband, aggregation and derived metrics state.
+ */
+public class WeewxStation {
+  private final String topic;
+  private final DeviceId deviceId;
+  private final WeewxDispatchTable dispatchTable;
+  private final WeewxValueFilter valueFilter;
+  private final WeewxWindowAggregator aggregator;
+  private final WeewxDerivedMetrics derivedMetrics;
+  private final WeewxBatchUpdateSink batchSink;
+  private final WeewxValueBatch batch;
+  private final WeewxPacketWatermark watermark;
+  private final WeewxBatchUpdateSink lateSink;
+  private final WeewxValueBatch lateBatch;
+  private final LongAdder duplicates = new LongAdder();
+  private final LongAdder late = new LongAdder();
+  private final WeewxPacketLog packetLog;
+  private final WeewxLoopPacketDecoder.Layout layout = new WeewxLoopPacketDecoder.Layout();
+  private boolean live = true;
+
+  public WeewxStation(String topic, DeviceId deviceId, List<WeewxPropertyMapping> mappings, WeewxValueUpdaters valueUpdaters, WeewxProperties properties) {
+    this(topic, deviceId, mappings, valueUpdaters, properties, null);
+  }
+
+  /**
+   * @param batchSink receives the values of a packet at once, or null to publish them through the value updaters
+   */
+  public WeewxStation(String topic,
+                      DeviceId deviceId,
+                      List<WeewxPropertyMapping> mappings,
+                      WeewxValueUpdaters valueUpdaters,
+                      WeewxProperties properties,
+                      WeewxBatchUpdateSink batchSink
+  ) {
+    this(topic, deviceId, mappings, valueUpdaters, properties, batchSink, null);
+  }
+
+  /**
+   * @param historySink receives the values of late packets if the {@link WeewxPacketWatermark.LatePolicy} is HISTORY, or null to discard them
+   */
+  public WeewxStation(String topic,
+                      DeviceId deviceId,
+                      List<WeewxPropertyMapping> mappings,
+                      WeewxValueUpdaters valueUpdaters,
+                      WeewxProperties properties,
+                      WeewxBatchUpdateSink batchSink,
+                      WeewxBatchUpdateSink historySink
+  ) {
+    this(topic, deviceId, mappings, valueUpdaters, properties, batchSink, historySink, false);
+  }
+
+  /**
+   * @param archive true for the records of an imported archive, which are older than the live packets, so they bypass the watermark
+   */
+  public WeewxStation(String topic,
+                      DeviceId deviceId,
+                      List<WeewxPropertyMapping> mappings,
+                      WeewxValueUpdaters valueUpdaters,
+                      WeewxProperties properties,
+                      WeewxBatchUpdateSink batchSink,
+                      WeewxBatchUpdateSink historySink,
+                      boolean archive
+  ) {
+    this.topic = topic;
+    this.deviceId = deviceId;
+    dispatchTable = new WeewxDispatchTable(deviceId, mappings, valueUpdaters);
+    valueFilter = properties.getDeadband().isEnabled() ? new WeewxDeadbandFilter(dispatchTable, properties.getDeadband()) : WeewxValueFilter.ACCEPT_ALL;
+    derivedMetrics = properties.getDerivedMetrics().isEnabled() ? new WeewxDerivedMetrics() : null;
+    aggregator = properties.getAggregation().isEnabled() ? new WeewxWindowAggregator(properties.getAggregation()) : null;
+    this.batchSink = batchSink;
+    batch = batchSink == null ? null : new WeewxValueBatch(deviceId, dispatchTable.size());
+    WeewxProperties.Watermark watermarkProperties = properties.getWatermark();
+    watermark = watermarkProperties.isEnabled() && !archive ? new WeewxPacketWatermark(watermarkProperties.getReorderWindow(), watermarkProperties.getResetThreshold(),
+        watermarkProperties.getResetAfter(), Clock.systemUTC()) : null;
+    lateSink = watermarkProperties.getLatePolicy() == WeewxPacketWatermark.LatePolicy.HISTORY ? historySink : null;
+    lateBatch = lateSink == null ? null : new WeewxValueBatch(deviceId, dispatchTable.size());
+    WeewxProperties.Diagnostics diagnostics = properties.getDiagnostics();
+    packetLog = new WeewxPacketLog(diagnostics.getLogSampleRate(), diagnostics.isEnabled() ? diagnostics.getRecentPackets() : 0);
+  }
+
+  /**
+   * Synchronized for concurrent MQTT callbacks, uncontended when the packets are processed by the {@link WeewxIngestionPipeline}.
+   */
+  public boolean dispatch(WeewxLoopRecord record, long epochSecond) {
+    return dispatch(record, epochSecond, true);
+  }
+
+  /**
+   * @param live false if the packet is replayed or imported, then the aggregation window is not flushed by the wall clock, see
+   *             {@link #flushEnded(long)}
+   * @return false if the packet was rejected as duplicate or late
+   */
+  public synchronized boolean dispatch(WeewxLoopRecord record, long epochSecond, boolean live) {
+    this.live = live;
+    if (watermark != null && record.isPresent(DATE_TIME)) {
+      switch (watermark.check((long) record.get(DATE_TIME))) {
+        case DUPLICATE -> {
+          duplicates.increment();
+          return false;
+        }
+        case LATE -> {
+          dispatchLate(record, epochSecond);
+          return false;
+        }
+        case ACCEPT -> {
+        }
+      }
+    }
+    if (aggregator != null && aggregator.isFlushed(epochSecond)) {
+      dispatchLate(record, epochSecond);
+      return false;
+    }
+    if (derivedMetrics != null) {
+      derivedMetrics.apply(record, epochSecond);
+    }
+    if (aggregator != null) {
+      publishAggregate(aggregator.add(record, epochSecond), epochSecond);
+      return true;
+    }
+    publish(record, epochSecond);
+    return true;
+  }
+
+  private void dispatchLate(WeewxLoopRecord record, long epochSecond) {
+    late.increment();
+    if (lateSink != null) {
+      dispatchTable.collect(record, epochSecond, WeewxValueFilter.ACCEPT_ALL, lateBatch);
+      lateSink.update(lateBatch);
+    }
+  }
+
+  /**
+   * Publishes the aggregate of the open aggregation window, e.g. on shutdown or at the end of a replay.
+   */
+  public synchronized void flush() {
+    if (aggregator != null) {
+      publishAggregate(aggregator.flush(), aggregator.getWindowStart());
+    }
+  }
+
+  /**
+   * Publishes the aggregate of the open aggregation window if the window and its grace period ended before the given time, so that the last
+   * window of a station that stopped sending packets is published as well. Skipped while the station is fed by replayed or imported packets,
+   * whose windows are closed by their own {@code dateTime}.
+   */
+  public synchronized void flushEnded(long epochSecond) {
+    if (aggregator != null && live) {
+      publishAggregate(aggregator.flushEnded(epochSecond), aggregator.getWindowStart());
+    }
+  }
+
+  private void publishAggregate(WeewxLoopRecord aggregate, long epochSecond) {
+    if (aggregate == null) {
+      return;
+    }
+    publish(aggregate, aggregate.isPresent(DATE_TIME) ? (long) aggregate.get(DATE_TIME) : epochSecond);
+  }
+
+  private void publish(WeewxLoopRecord record, long epochSecond) {
+    if (batchSink == null) {
+      dispatchTable.dispatch(record, epochSecond, valueFilter);
+      return;
+    }
+    dispatchTable.collect(record, epochSecond, valueFilter, batch);
+    if (!batch.isEmpty()) {
+      batchSink.update(batch);
+    }
+  }
+
+  /**
+   * @return the number of packets dropped because a packet with the same {@code dateTime} was already dispatched
+   */
+  public long getDuplicateCount() {
+    return duplicates.sum();
+  }
+
+  /**
+   * @return the number of packets older than the reorder window or of an already published aggregation window, which were not published
+   */
+  public long getLateCount() {
+    return late.sum();
+  }
+
+  public String getTopic() {
+    return topic;
+  }
+
+  public DeviceId getDeviceId() {
+    return deviceId;
+  }
+
+  public WeewxPacketLog getPacketLog() {
+    return packetLog;
+  }
+
+  /**
+   * @return the key order learned from the packets of this station
+   */
+  public WeewxLoopPacketDecoder.Layout getLayout() {
+    return layout;
+  }
+
+  public WeewxDispatchTable getDispatchTable() {
+    return dispatchTable;
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import java.util.Map;
+
+/**
+ * Derives the station id, which is used as device id, from the topic of a loop packet. Configured topics take precedence, the subscription
+ * topic itself maps to the default station and any other topic to its suffix, e.g. {@code weather/loop/garden} to {@code garden}.
+ */
+public class WeewxStationRouter {
+  private final String topicPrefix;
+  private final String defaultStationId;
+  private final Map<String, String> stations;
+
+  public WeewxStationRouter(WeewxProperties properties) {
+    String topic = properties.getTopic();
+    topicPrefix = topic.endsWith("/#") ? topic.substring(0, topic.length() - 2) : topic;
+    defaultStationId = properties.getDefaultStationId();
+    stations = Map.copyOf(properties.getStations());
+  }
+
+  public String getStationId(String topic) {
+    String stationId = stations.get(topic);
+    if (stationId != null) {
+      return stationId;
+    }
+    if (topic.length() > topicPrefix.length() + 1 && topic.startsWith(topicPrefix) && topic.charAt(topicPrefix.length()) == '/') {
+      return topic.substring(topicPrefix.length() + 1);
+    }
+    return defaultStationId;
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * Converts the epoch seconds of weewx timestamps, e.g. {@code dateTime} or {@code lightning_last_det_time}, into the {@link OffsetDateTime}
+ * of the value update services.
+ * <p>
+ * The offset of the system default zone is cached until its next transition, so the zone rules are only consulted once per offset period.
+ * Changes of the system default zone after startup are not picked up.
+ */
+public final class WeewxTimestamps {
+  private static final WeewxTimestamps SYSTEM_DEFAULT = new WeewxTimestamps(ZoneId.systemDefault());
+
+  private final ZoneRules rules;
+  private volatile OffsetPeriod period = new OffsetPeriod(Long.MAX_VALUE, Long.MIN_VALUE, ZoneOffset.UTC);
+
+  WeewxTimestamps(ZoneId zone) {
+    rules = zone.getRules();
+  }
+
+  public static OffsetDateTime toDateTime(long epochSecond) {
+    return SYSTEM_DEFAULT.dateTimeOf(epochSecond);
+  }
+
+  /**
+   * @param epochSeconds a weewx timestamp, fractions of a second are dropped
+   */
+  public static OffsetDateTime toDateTime(double epochSeconds) {
+    return SYSTEM_DEFAULT.dateTimeOf((long) epochSeconds);
+  }
+
+  OffsetDateTime dateTimeOf(long epochSecond) {
+    ZoneOffset offset = offsetAt(epochSecond);
+    return OffsetDateTime.of(LocalDateTime.ofEpochSecond(epochSecond, 0, offset), offset);
+  }
+
+  ZoneOffset offsetAt(long epochSecond) {
+    OffsetPeriod current = period;
+    if (epochSecond >= current.from() && epochSecond < current.until()) {
+      return current.offset();
+    }
+    OffsetPeriod computed = compute(epochSecond);
+    if (computed.from() >= current.from() || current.from() == Long.MAX_VALUE) {
+      // keep the latest period, older timestamps like the last lightning must not evict the one of the current packets
+      period = computed;
+    }
+    return computed.offset();
+  }
+
+  private OffsetPeriod compute(long epochSecond) {
+    Instant instant = Instant.ofEpochSecond(epochSecond);
+    ZoneOffset offset = rules.getOffset(instant);
+    if (rules.isFixedOffset()) {
+      return new OffsetPeriod(Long.MIN_VALUE, Long.MAX_VALUE, offset);
+    }
+    // the previous transition of the following second is the latest one at or before epochSecond
+    ZoneOffsetTransition previous = rules.previousTransition(instant.plusSeconds(1));
+    ZoneOffsetTransition next = rules.nextTransition(instant);
+    return new OffsetPeriod(
+        previous == null ? Long.MIN_VALUE : previous.toEpochSecond(),
+        next == null ? Long.MAX_VALUE : next.toEpochSecond(),
+        offset);
+  }
+
+  private record OffsetPeriod(long from, long until, ZoneOffset offset) {
+  }
+}
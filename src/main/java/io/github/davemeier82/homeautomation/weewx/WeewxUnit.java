@@ -0,0 +1,88 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+/**
+ * The units that weewx appends to the keys of a loop packet, e.g. {@code F} in {@code outTemp_F}, with the conversion into the unit of the
+ * METRIC unit system that {@link WeewxObservation} is defined in.
+ */
+public enum WeewxUnit {
+  DEGREE_C("C"),
+  DEGREE_F("F", 5.0 / 9.0, -32.0 * 5.0 / 9.0),
+  CM("cm"),
+  INCH("in", 2.54, 0),
+  MM("mm", 0.1, 0),
+  CM_PER_HOUR("cm_per_hour"),
+  INCH_PER_HOUR("inch_per_hour", 2.54, 0),
+  MM_PER_HOUR("mm_per_hour", 0.1, 0),
+  KPH("kph"),
+  MPH("mph", 1.609344, 0),
+  MPS("mps", 3.6, 0),
+  MBAR("mbar"),
+  INHG("inHg", 33.86389, 0),
+  KM("km"),
+  MILE("mile", 1.609344, 0),
+  METER("meter"),
+  FOOT("foot", 0.3048, 0),
+  LUX("lux"),
+  COUNT("count"),
+  MINUTE("minute");
+
+  private final String suffix;
+  private final double scale;
+  private final double offset;
+
+  WeewxUnit(String suffix) {
+    this(suffix, 1, 0);
+  }
+
+  WeewxUnit(String suffix, double scale, double offset) {
+    this.suffix = suffix;
+    this.scale = scale;
+    this.offset = offset;
+  }
+
+  /**
+   * @return the unit the key ends with, or null if it has none, e.g. for {@code windDir}
+   */
+  static WeewxUnit ofKey(String key) {
+    WeewxUnit unit = null;
+    for (WeewxUnit candidate : values()) {
+      if (key.endsWith("_" + candidate.suffix) && (unit == null || candidate.suffix.length() > unit.suffix.length())) {
+        unit = candidate;
+      }
+    }
+    return unit;
+  }
+
+  public String getSuffix() {
+    return suffix;
+  }
+
+  /**
+   * @return the factor of the conversion into the METRIC unit
+   */
+  public double getScale() {
+    return scale;
+  }
+
+  /**
+   * @return the offset of the conversion into the METRIC unit, added after scaling
+   */
+  public double getOffset() {
+    return offset;
+  }
+}
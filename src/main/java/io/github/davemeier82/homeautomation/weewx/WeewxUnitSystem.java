@@ -0,0 +1,104 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import java.util.Optional;
+
+import static io.github.davemeier82.homeautomation.weewx.WeewxUnit.*;
+
+/**
+ * The unit systems of weewx, identified by the {@code usUnits} value of a packet. Values are converted into the METRIC unit system, which
+ * {@link WeewxObservation} and the mappings are defined in, with one multiply-add per value.
+ */
+public enum WeewxUnitSystem {
+  US(1),
+  METRIC(16),
+  METRICWX(17);
+
+  private final int usUnits;
+  private final double[] scales = new double[WeewxObservation.COUNT];
+  private final double[] offsets = new double[WeewxObservation.COUNT];
+
+  WeewxUnitSystem(int usUnits) {
+    this.usUnits = usUnits;
+  }
+
+  static {
+    for (WeewxUnitSystem system : values()) {
+      for (WeewxObservation observation : WeewxObservation.values()) {
+        WeewxUnit unit = observation.getUnit() == null ? null : system.unitOf(observation.getUnit());
+        system.scales[observation.ordinal()] = unit == null ? 1 : unit.getScale();
+        system.offsets[observation.ordinal()] = unit == null ? 0 : unit.getOffset();
+      }
+    }
+  }
+
+  public static Optional<WeewxUnitSystem> of(double usUnits) {
+    for (WeewxUnitSystem system : values()) {
+      if (system.usUnits == usUnits) {
+        return Optional.of(system);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * @param metricUnit the unit of an observation in the METRIC unit system
+   * @return the unit this system uses for the same observation
+   */
+  public WeewxUnit unitOf(WeewxUnit metricUnit) {
+    return switch (this) {
+      case US -> switch (metricUnit) {
+        case DEGREE_C -> DEGREE_F;
+        case CM -> INCH;
+        case CM_PER_HOUR -> INCH_PER_HOUR;
+        case KPH -> MPH;
+        case MBAR -> INHG;
+        case KM -> MILE;
+        case METER -> FOOT;
+        default -> metricUnit;
+      };
+      case METRIC -> metricUnit;
+      case METRICWX -> switch (metricUnit) {
+        case CM -> MM;
+        case CM_PER_HOUR -> MM_PER_HOUR;
+        case KPH -> MPS;
+        default -> metricUnit;
+      };
+    };
+  }
+
+  /**
+   * Converts the present observations of the mask from this unit system into METRIC.
+   *
+   * @param mask bit n is set to convert the observation with ordinal n, see {@link WeewxLoopRecord#getPresenceMask()}
+   */
+  public void toMetric(WeewxLoopRecord record, long mask) {
+    if (this == METRIC) {
+      return;
+    }
+    mask &= record.getPresenceMask();
+    while (mask != 0) {
+      int slot = Long.numberOfTrailingZeros(mask);
+      mask &= mask - 1;
+      record.set(slot, record.get(slot) * scales[slot] + offsets[slot]);
+    }
+  }
+
+  public int getUsUnits() {
+    return usUnits;
+  }
+}
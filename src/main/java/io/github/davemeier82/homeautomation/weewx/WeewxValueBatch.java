@@ -0,0 +1,124 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+/**
+ * The values of one loop packet for one device, one entry per mapped observation. Several entries share a {@link DevicePropertyId}, e.g.
+ * wind speed and wind direction both belong to {@code wind}, so an entry is only identified by its id together with its
+ * {@link WeewxPropertyType}.
+ * <p>
+ * A batch is reused for the next packet of the station, so a {@link WeewxBatchUpdateSink} must copy what it keeps beyond
+ * {@link WeewxBatchUpdateSink#update(WeewxValueBatch)}. Not thread-safe.
+ */
+public final class WeewxValueBatch {
+  private final DeviceId deviceId;
+  private final WeewxPropertyType[] types;
+  private final DevicePropertyId[] propertyIds;
+  private final String[] displayNames;
+  private final double[] values;
+  private final long[] epochSeconds;
+  private long epochSecond;
+  private OffsetDateTime dateTime;
+  private int size;
+
+  public WeewxValueBatch(DeviceId deviceId, int capacity) {
+    this.deviceId = deviceId;
+    types = new WeewxPropertyType[capacity];
+    propertyIds = new DevicePropertyId[capacity];
+    displayNames = new String[capacity];
+    values = new double[capacity];
+    epochSeconds = new long[capacity];
+  }
+
+  void reset(long epochSecond) {
+    this.epochSecond = epochSecond;
+    dateTime = null;
+    size = 0;
+  }
+
+  void add(WeewxPropertyType type, DevicePropertyId propertyId, String displayName, double value, long valueEpochSecond) {
+    types[size] = type;
+    propertyIds[size] = propertyId;
+    displayNames[size] = displayName;
+    values[size] = value;
+    epochSeconds[size] = valueEpochSecond;
+    size++;
+  }
+
+  public DeviceId getDeviceId() {
+    return deviceId;
+  }
+
+  public long getEpochSecond() {
+    return epochSecond;
+  }
+
+  /**
+   * @return the dateTime of the loop packet, created on first access
+   */
+  public OffsetDateTime getDateTime() {
+    if (dateTime == null) {
+      dateTime = WeewxTimestamps.toDateTime(epochSecond);
+    }
+    return dateTime;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public WeewxPropertyType getType(int index) {
+    return types[checkIndex(index)];
+  }
+
+  public DevicePropertyId getPropertyId(int index) {
+    return propertyIds[checkIndex(index)];
+  }
+
+  public String getDisplayName(int index) {
+    return displayNames[checkIndex(index)];
+  }
+
+  public double getValue(int index) {
+    return values[checkIndex(index)];
+  }
+
+  /**
+   * @return the dateTime of the value, which differs from the packet for e.g. the distance of the last lightning
+   */
+  public OffsetDateTime getDateTime(int index) {
+    long valueEpochSecond = getEpochSecond(index);
+    return valueEpochSecond == epochSecond ? getDateTime() : WeewxTimestamps.toDateTime(valueEpochSecond);
+  }
+
+  public long getEpochSecond(int index) {
+    return epochSeconds[checkIndex(index)];
+  }
+
+  private int checkIndex(int index) {
+    return Objects.checkIndex(index, size);
+  }
+}
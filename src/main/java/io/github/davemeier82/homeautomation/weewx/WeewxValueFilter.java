@@ -0,0 +1,32 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+/**
+ * Decides whether a value of a {@link WeewxDispatchTable} entry is passed on to its value update service.
+ */
+@FunctionalInterface
+public interface WeewxValueFilter {
+  WeewxValueFilter ACCEPT_ALL = (index, value, epochSecond) -> true;
+
+  /**
+   * @param index       the index of the entry in the dispatch table
+   * @param value       the value in the published unit
+   * @param epochSecond the time of the value
+   * @return true if the value should be published
+   */
+  boolean accept(int index, double value, long epochSecond);
+}
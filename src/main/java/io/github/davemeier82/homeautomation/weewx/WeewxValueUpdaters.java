@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import io.github.davemeier82.homeautomation.core.updater.CloudBaseValueUpdateService;
+import io.github.davemeier82.homeautomation.core.updater.HumidityValueUpdateService;
+import io.github.davemeier82.homeautomation.core.updater.IlluminanceValueUpdateService;
+import io.github.davemeier82.homeautomation.core.updater.LightningCountValueUpdateService;
+import io.github.davemeier82.homeautomation.core.updater.LightningDistanceValueUpdateService;
+import io.github.davemeier82.homeautomation.core.updater.PressureValueUpdateService;
+import io.github.davemeier82.homeautomation.core.updater.RainIntervalValueUpdateService;
+import io.github.davemeier82.homeautomation.core.updater.RainRateValueUpdateService;
+import io.github.davemeier82.homeautomation.core.updater.RainTodayValueUpdateService;
+import io.github.davemeier82.homeautomation.core.updater.TemperatureValueUpdateService;
+import io.github.davemeier82.homeautomation.core.updater.UvIndexValueUpdateService;
+import io.github.davemeier82.homeautomation.core.updater.WindDirectionValueUpdateService;
+import io.github.davemeier82.homeautomation.core.updater.WindGustDirectionValueUpdateService;
+import io.github.davemeier82.homeautomation.core.updater.WindGustSpeedValueUpdateService;
+import io.github.davemeier82.homeautomation.core.updater.WindRunValueUpdateService;
+import io.github.davemeier82.homeautomation.core.updater.WindSpeedValueUpdateService;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import static io.github.davemeier82.homeautomation.weewx.WeewxPropertyType.*;
+
+/**
+ * Maps each {@link WeewxPropertyType} to the core value update service that publishes it.
+ */
+public class WeewxValueUpdaters {
+  private final Map<WeewxPropertyType, WeewxValueUpdater> updaters;
+
+  public WeewxValueUpdaters(Map<WeewxPropertyType, WeewxValueUpdater> updaters) {
+    this.updaters = new EnumMap<>(WeewxPropertyType.class);
+    this.updaters.putAll(updaters);
+  }
+
+  public WeewxValueUpdaters(
+      TemperatureValueUpdateService temperatureValueUpdateService,
+      HumidityValueUpdateService humidityValueUpdateService,
+      PressureValueUpdateService pressureValueUpdateService,
+      CloudBaseValueUpdateService cloudBaseValueUpdateService,
+      RainIntervalValueUpdateService rainIntervalValueUpdateService,
+      RainTodayValueUpdateService rainTodayValueUpdateService,
+      RainRateValueUpdateService rainRateValueUpdateService,
+      IlluminanceValueUpdateService illuminanceValueUpdateService,
+      UvIndexValueUpdateService uvIndexValueUpdateService,
+      WindSpeedValueUpdateService windSpeedValueUpdateService,
+      WindDirectionValueUpdateService windDirectionValueUpdateService,
+      WindGustSpeedValueUpdateService windGustSpeedValueUpdateService,
+      WindGustDirectionValueUpdateService windGustDirectionValueUpdateService,
+      WindRunValueUpdateService windRunValueUpdateService,
+      LightningCountValueUpdateService lightningCountValueUpdateService,
+      LightningDistanceValueUpdateService lightningDistanceValueUpdateService
+  ) {
+    updaters = new EnumMap<>(WeewxPropertyType.class);
+    updaters.put(TEMPERATURE, (value, dateTime, id, displayName) -> temperatureValueUpdateService.setValue((float) value, dateTime, id, displayName));
+    updaters.put(HUMIDITY, (value, dateTime, id, displayName) -> humidityValueUpdateService.setValue((float) value, dateTime, id, displayName));
+    updaters.put(PRESSURE, (value, dateTime, id, displayName) -> pressureValueUpdateService.setValue((float) value, dateTime, id, displayName));
+    updaters.put(CLOUD_BASE, (value, dateTime, id, displayName) -> cloudBaseValueUpdateService.setValue((float) value, dateTime, id, displayName));
+    updaters.put(RAIN_INTERVAL, (value, dateTime, id, displayName) -> rainIntervalValueUpdateService.setValue((float) value, dateTime, id, displayName));
+    updaters.put(RAIN_TODAY, (value, dateTime, id, displayName) -> rainTodayValueUpdateService.setValue((float) value, dateTime, id, displayName));
+    updaters.put(RAIN_RATE, (value, dateTime, id, displayName) -> rainRateValueUpdateService.setValue((float) value, dateTime, id, displayName));
+    updaters.put(ILLUMINANCE, (value, dateTime, id, displayName) -> illuminanceValueUpdateService.setValue((int) value, dateTime, id, displayName));
+    updaters.put(UV_INDEX, (value, dateTime, id, displayName) -> uvIndexValueUpdateService.setValue((float) value, dateTime, id, displayName));
+    updaters.put(WIND_SPEED, (value, dateTime, id, displayName) -> windSpeedValueUpdateService.setValue((float) value, dateTime, id, displayName));
+    updaters.put(WIND_DIRECTION, (value, dateTime, id, displayName) -> windDirectionValueUpdateService.setValue((float) value, dateTime, id, displayName));
+    updaters.put(WIND_GUST_SPEED, (value, dateTime, id, displayName) -> windGustSpeedValueUpdateService.setValue((float) value, dateTime, id, displayName));
+    updaters.put(WIND_GUST_DIRECTION, (value, dateTime, id, displayName) -> windGustDirectionValueUpdateService.setValue((float) value, dateTime, id, displayName));
+    updaters.put(WIND_RUN, windRunValueUpdateService::setValue);
+    updaters.put(LIGHTNING_COUNT, (value, dateTime, id, displayName) -> lightningCountValueUpdateService.setValue((int) Math.round(value), dateTime, id, displayName));
+    updaters.put(LIGHTNING_DISTANCE, (value, dateTime, id, displayName) -> lightningDistanceValueUpdateService.setValue((int) Math.round(value), dateTime, id, displayName));
+  }
+
+  /**
+   * @return updaters that report to the given metrics
+   */
+  public WeewxValueUpdaters instrument(WeewxMetrics metrics) {
+    return wrap(metrics::instrument);
+  }
+
+  /**
+   * @return updaters that replace each updater with the result of the given function
+   */
+  public WeewxValueUpdaters wrap(BiFunction<WeewxPropertyType, WeewxValueUpdater, WeewxValueUpdater> wrapper) {
+    Map<WeewxPropertyType, WeewxValueUpdater> wrapped = new EnumMap<>(WeewxPropertyType.class);
+    updaters.forEach((type, updater) -> wrapped.put(type, wrapper.apply(type, updater)));
+    return new WeewxValueUpdaters(wrapped);
+  }
+
+  public WeewxValueUpdater get(WeewxPropertyType type) {
+    WeewxValueUpdater updater = updaters.get(type);
+    if (updater == null) {
+      throw new IllegalArgumentException("no value updater for " + type);
+    }
+    return updater;
+  }
+}
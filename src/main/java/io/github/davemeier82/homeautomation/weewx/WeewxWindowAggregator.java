@@ -0,0 +1,252 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import static io.github.davemeier82.homeautomation.weewx.WeewxObservation.*;
+
+/**
+ * Accumulates the loop packets of one station over tumbling windows aligned to the epoch and emits one aggregated record per window.
+ * <p>
+ * Windows are driven by the {@code dateTime} of the packets, so a window is closed by the first packet of a later window, or by
+ * {@link #flushEnded(long)} once the window and its grace period ended without a further packet. Packets older than the current window are
+ * added to the current window, unless it was already flushed, see {@link #isFlushed(long)}. Unless configured otherwise,
+ * {@link WeewxObservation#isDelta() deltas} are summed, gusts
+ * keep their maximum, running totals and timestamps keep the last value and everything else uses the configured default mode.
+ * <p>
+ * Wind directions cannot be averaged as numbers because of the wrap at 360°. The aggregator sums the wind as u/v vector components weighted
+ * by the speed and publishes the direction of the mean vector for {@code windDir}, and the direction of the strongest gust for
+ * {@code windGustDir}. Calm windows keep the last direction. Extra values that are not a {@link WeewxObservation} keep the last value.
+ * <p>
+ * Not thread-safe, the packets of one station have to be processed sequentially.
+ */
+public final class WeewxWindowAggregator {
+  private static final WeewxObservation[] OBSERVATIONS = WeewxObservation.values();
+  private static final Set<WeewxObservation> MAXIMUM = EnumSet.of(WIND_GUST_KPH, DAYMAXWIND);
+  private static final Set<WeewxObservation> LATEST = EnumSet.of(DATE_TIME, US_UNITS, INTERVAL_MINUTE, WINDRUN_KM, HOUR_RAIN_CM, RAIN24_CM, DAY_RAIN_CM,
+      STORM_RAIN_CM, WEEK_RAIN_CM, MONTH_RAIN_CM, YEAR_RAIN_CM, LIGHTNING_LAST_DET_TIME, RAIN_LAST_HOUR_CM, RAIN_LAST_24_HOURS_CM, LIGHTNING_STRIKES_LAST_10_MINUTES,
+      LIGHTNING_STRIKES_LAST_30_MINUTES);
+
+  private final long windowSeconds;
+  private final long graceSeconds;
+  private final WeewxAggregationMode[] modes = new WeewxAggregationMode[WeewxObservation.COUNT];
+  private final double[] min = new double[WeewxObservation.COUNT];
+  private final double[] max = new double[WeewxObservation.COUNT];
+  private final double[] sum = new double[WeewxObservation.COUNT];
+  private final double[] last = new double[WeewxObservation.COUNT];
+  private final int[] count = new int[WeewxObservation.COUNT];
+  private final WeewxLoopRecord aggregate = new WeewxLoopRecord();
+  private final WeewxLoopRecord extras = new WeewxLoopRecord();
+  private long presenceMask;
+  private double windU;
+  private double windV;
+  private int windCount;
+  private double gustU;
+  private double gustV;
+  private double gustMaximum = Double.NaN;
+  private double gustDirection = Double.NaN;
+  private long windowStart = Long.MIN_VALUE;
+  private boolean flushed;
+
+  public WeewxWindowAggregator(WeewxProperties.Aggregation aggregation) {
+    windowSeconds = aggregation.getWindow().toSeconds();
+    if (windowSeconds <= 0) {
+      throw new IllegalArgumentException("aggregation window must be at least one second");
+    }
+    if (aggregation.getGrace().isNegative()) {
+      throw new IllegalArgumentException("aggregation grace must not be negative");
+    }
+    graceSeconds = aggregation.getGrace().toSeconds();
+    for (WeewxObservation observation : OBSERVATIONS) {
+      modes[observation.ordinal()] = defaultMode(observation, aggregation.getMode());
+    }
+    for (Map.Entry<String, WeewxAggregationMode> entry : aggregation.getObservations().entrySet()) {
+      WeewxObservation observation = WeewxObservation.getByKey(entry.getKey())
+          .orElseThrow(() -> new IllegalArgumentException("unknown weewx observation " + entry.getKey()));
+      modes[observation.ordinal()] = entry.getValue();
+    }
+    for (WeewxObservation observation : OBSERVATIONS) {
+      WeewxAggregationMode mode = modes[observation.ordinal()];
+      if ((mode == WeewxAggregationMode.VECTOR && observation != WIND_DIR && observation != WIND_GUST_DIR && observation != WIND_SPEED_KPH)
+          || (mode == WeewxAggregationMode.GUST && observation != WIND_GUST_DIR)) {
+        throw new IllegalArgumentException(mode + " aggregation is not supported for " + observation.getKey());
+      }
+    }
+  }
+
+  private static WeewxAggregationMode defaultMode(WeewxObservation observation, WeewxAggregationMode mode) {
+    if (observation.isDelta()) {
+      return WeewxAggregationMode.SUM;
+    }
+    if (observation == WIND_DIR) {
+      return WeewxAggregationMode.VECTOR;
+    }
+    if (observation == WIND_GUST_DIR) {
+      return WeewxAggregationMode.GUST;
+    }
+    if (MAXIMUM.contains(observation)) {
+      return WeewxAggregationMode.MAX;
+    }
+    if (LATEST.contains(observation)) {
+      return WeewxAggregationMode.LAST;
+    }
+    return mode;
+  }
+
+  /**
+   * @param record      the loop packet
+   * @param epochSecond the dateTime of the packet
+   * @return the aggregate of the window closed by this packet or null if the window is still open. The returned record is reused by the next
+   * call. Packets of a {@link #isFlushed(long) flushed} window are ignored.
+   */
+  public WeewxLoopRecord add(WeewxLoopRecord record, long epochSecond) {
+    long start = Math.floorDiv(epochSecond, windowSeconds) * windowSeconds;
+    WeewxLoopRecord closed = null;
+    if (flushed && start <= windowStart) {
+      return null;
+    }
+    if (windowStart == Long.MIN_VALUE) {
+      windowStart = start;
+    } else if (start > windowStart) {
+      closed = flushed ? null : close();
+      windowStart = start;
+      flushed = false;
+    }
+    accumulate(record);
+    return closed;
+  }
+
+  /**
+   * @return the aggregate of the open window or null if no packet was added since the last window was closed
+   */
+  public WeewxLoopRecord flush() {
+    if (windowStart == Long.MIN_VALUE || flushed) {
+      return null;
+    }
+    flushed = true;
+    return presenceMask == 0 && extras.isEmpty() ? null : close();
+  }
+
+  /**
+   * @param epochSecond the current time
+   * @return the aggregate of the open window if it and the grace period ended before the given time, otherwise null
+   */
+  public WeewxLoopRecord flushEnded(long epochSecond) {
+    return windowStart != Long.MIN_VALUE && epochSecond >= windowStart + windowSeconds + graceSeconds ? flush() : null;
+  }
+
+  /**
+   * @param epochSecond the dateTime of a packet
+   * @return true if the window of the packet was already published by a flush, so the packet must not be added
+   */
+  public boolean isFlushed(long epochSecond) {
+    return flushed && Math.floorDiv(epochSecond, windowSeconds) * windowSeconds <= windowStart;
+  }
+
+  public long getWindowStart() {
+    return windowStart;
+  }
+
+  private void accumulate(WeewxLoopRecord record) {
+    long mask = record.getPresenceMask();
+    while (mask != 0) {
+      int slot = Long.numberOfTrailingZeros(mask);
+      mask &= mask - 1;
+      double value = record.get(OBSERVATIONS[slot]);
+      if ((presenceMask & (1L << slot)) == 0) {
+        min[slot] = value;
+        max[slot] = value;
+        sum[slot] = value;
+        count[slot] = 1;
+      } else {
+        min[slot] = Math.min(min[slot], value);
+        max[slot] = Math.max(max[slot], value);
+        sum[slot] += value;
+        count[slot]++;
+      }
+      last[slot] = value;
+    }
+    presenceMask |= record.getPresenceMask();
+    extras.mergeExtras(record);
+    accumulateWind(record);
+  }
+
+  private void accumulateWind(WeewxLoopRecord record) {
+    if (record.isPresent(WIND_SPEED_KPH) && record.isPresent(WIND_DIR)) {
+      double speed = record.get(WIND_SPEED_KPH);
+      double direction = Math.toRadians(record.get(WIND_DIR));
+      windU += speed * Math.sin(direction);
+      windV += speed * Math.cos(direction);
+      windCount++;
+    }
+    if (record.isPresent(WIND_GUST_KPH) && record.isPresent(WIND_GUST_DIR)) {
+      double speed = record.get(WIND_GUST_KPH);
+      double direction = record.get(WIND_GUST_DIR);
+      gustU += speed * Math.sin(Math.toRadians(direction));
+      gustV += speed * Math.cos(Math.toRadians(direction));
+      if (Double.isNaN(gustMaximum) || speed > gustMaximum) {
+        gustMaximum = speed;
+        gustDirection = direction;
+      }
+    }
+  }
+
+  private WeewxLoopRecord close() {
+    aggregate.clear();
+    long mask = presenceMask;
+    while (mask != 0) {
+      int slot = Long.numberOfTrailingZeros(mask);
+      mask &= mask - 1;
+      aggregate.set(slot, switch (modes[slot]) {
+        case LAST -> last[slot];
+        case AVERAGE -> sum[slot] / count[slot];
+        case MIN -> min[slot];
+        case MAX -> max[slot];
+        case SUM -> sum[slot];
+        case VECTOR -> vector(slot);
+        case GUST -> Double.isNaN(gustDirection) ? last[slot] : gustDirection;
+      });
+    }
+    aggregate.mergeExtras(extras);
+    extras.clear();
+    presenceMask = 0;
+    windU = 0;
+    windV = 0;
+    windCount = 0;
+    gustU = 0;
+    gustV = 0;
+    gustMaximum = Double.NaN;
+    gustDirection = Double.NaN;
+    return aggregate;
+  }
+
+  private double vector(int slot) {
+    if (slot == WIND_SPEED_KPH.ordinal()) {
+      // only packets with a direction are part of the vector
+      return windCount == 0 ? sum[slot] / count[slot] : Math.hypot(windU, windV) / windCount;
+    }
+    double u = slot == WIND_DIR.ordinal() ? windU : gustU;
+    double v = slot == WIND_DIR.ordinal() ? windV : gustV;
+    if (u == 0 && v == 0) {
+      return last[slot];
+    }
+    double direction = Math.toDegrees(Math.atan2(u, v));
+    return (direction + 360) % 360;
+  }
+}
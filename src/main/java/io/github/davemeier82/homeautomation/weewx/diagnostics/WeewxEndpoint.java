@@ -0,0 +1,72 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.diagnostics;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.weewx.WeewxMqttSubscriber;
+import io.github.davemeier82.homeautomation.weewx.WeewxPropertyType;
+import io.github.davemeier82.homeautomation.weewx.WeewxStation;
+import io.github.davemeier82.homeautomation.weewx.device.WeewxDeviceType;
+import io.github.davemeier82.homeautomation.weewx.history.WeewxSamples;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Dumps the recently received raw loop packets of each station, keyed by station id, e.g. {@code GET /actuator/weewx} or
+ * {@code GET /actuator/weewx/roof}. With the history enabled, the recent values of a property are read by station, property id and type, e.g.
+ * {@code GET /actuator/weewx/roof/wind/WIND_SPEED}.
+ */
+@Endpoint(id = "weewx")
+public class WeewxEndpoint {
+  private final WeewxMqttSubscriber subscriber;
+
+  public WeewxEndpoint(WeewxMqttSubscriber subscriber) {
+    this.subscriber = subscriber;
+  }
+
+  @ReadOperation
+  public Map<String, List<WeewxRecentPacket>> recentPackets() {
+    Map<String, List<WeewxRecentPacket>> recentPackets = new TreeMap<>();
+    for (WeewxStation station : subscriber.getStations()) {
+      recentPackets.put(station.getDeviceId().id(), station.getPacketLog().getRecentPackets());
+    }
+    return recentPackets;
+  }
+
+  @ReadOperation
+  public List<WeewxRecentPacket> recentPackets(@Selector String stationId) {
+    return subscriber.getStations().stream()
+        .filter(station -> station.getDeviceId().id().equals(stationId))
+        .findAny()
+        .map(station -> station.getPacketLog().getRecentPackets())
+        .orElse(null);
+  }
+
+  @ReadOperation
+  public WeewxSamples history(@Selector String stationId, @Selector String propertyId, @Selector WeewxPropertyType type) {
+    DevicePropertyId devicePropertyId = new DevicePropertyId(new DeviceId(stationId, WeewxDeviceType.WEEWX), propertyId);
+    return subscriber.getHistory()
+        .flatMap(history -> history.get(devicePropertyId, type))
+        .map(series -> series.range(Long.MIN_VALUE, Long.MAX_VALUE))
+        .orElse(null);
+  }
+}
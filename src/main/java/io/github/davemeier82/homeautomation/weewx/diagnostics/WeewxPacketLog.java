@@ -0,0 +1,105 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.diagnostics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Diagnostics of the raw loop packets of one station. Every Nth packet is logged at debug level, and the last packets can be kept in a
+ * bounded ring to be dumped on demand, see {@link WeewxEndpoint}.
+ * <p>
+ * The payload is only turned into a {@link String} when it is actually logged or dumped. The ring reuses its buffers, so it does not allocate
+ * once it has seen the largest packet of the station. Thread-safe.
+ */
+public class WeewxPacketLog {
+  private static final Logger log = LoggerFactory.getLogger(WeewxPacketLog.class);
+
+  private final int sampleRate;
+  private final AtomicLong packets = new AtomicLong();
+  private final byte[][] payloads;
+  private final int[] lengths;
+  private final long[] receivedAt;
+  private int next;
+  private int size;
+
+  /**
+   * @param sampleRate log every Nth packet, 1 logs all of them
+   * @param capacity   the number of recent packets to keep, 0 to keep none
+   */
+  public WeewxPacketLog(int sampleRate, int capacity) {
+    if (sampleRate <= 0) {
+      throw new IllegalArgumentException("sample rate must be positive");
+    }
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity must not be negative");
+    }
+    this.sampleRate = sampleRate;
+    payloads = new byte[capacity][];
+    lengths = new int[capacity];
+    receivedAt = new long[capacity];
+  }
+
+  /**
+   * The position of the payload is not modified.
+   */
+  public void record(String topic, ByteBuffer payload) {
+    if (log.isDebugEnabled() && packets.getAndIncrement() % sampleRate == 0) {
+      log.debug("{}: {}", topic, UTF_8.decode(payload.duplicate()));
+    }
+    if (payloads.length > 0) {
+      keep(payload);
+    }
+  }
+
+  private synchronized void keep(ByteBuffer payload) {
+    int length = payload.remaining();
+    byte[] buffer = payloads[next];
+    if (buffer == null || buffer.length < length) {
+      buffer = new byte[length];
+      payloads[next] = buffer;
+    }
+    payload.get(payload.position(), buffer, 0, length);
+    lengths[next] = length;
+    receivedAt[next] = System.currentTimeMillis();
+    next = (next + 1) % payloads.length;
+    size = Math.min(size + 1, payloads.length);
+  }
+
+  /**
+   * @return the kept packets, oldest first
+   */
+  public synchronized List<WeewxRecentPacket> getRecentPackets() {
+    List<WeewxRecentPacket> recent = new ArrayList<>(size);
+    for (int n = 0; n < size; n++) {
+      int index = (next - size + n + payloads.length) % payloads.length;
+      recent.add(new WeewxRecentPacket(Instant.ofEpochMilli(receivedAt[index]), new String(payloads[index], 0, lengths[index], UTF_8)));
+    }
+    return recent;
+  }
+
+  public int getCapacity() {
+    return payloads.length;
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.history;
+
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.weewx.WeewxBatchUpdateSink;
+import io.github.davemeier82.homeautomation.weewx.WeewxPropertyKey;
+import io.github.davemeier82.homeautomation.weewx.WeewxPropertyType;
+import io.github.davemeier82.homeautomation.weewx.WeewxValueBatch;
+import io.github.davemeier82.homeautomation.weewx.WeewxValueUpdater;
+import io.github.davemeier82.homeautomation.weewx.WeewxValueUpdaters;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a {@link WeewxTimeSeries} of the recently published values of each device property and type, so that recent history can be read
+ * without asking the persistence. The memory is bounded by {@code 12 * capacity} bytes per series.
+ */
+public class WeewxHistory {
+  private final int capacity;
+  private final Map<WeewxPropertyKey, WeewxTimeSeries> timeSeries = new ConcurrentHashMap<>();
+
+  public WeewxHistory(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    this.capacity = capacity;
+  }
+
+  public void add(WeewxPropertyType type, DevicePropertyId devicePropertyId, long epochSecond, double value) {
+    WeewxPropertyKey key = new WeewxPropertyKey(devicePropertyId, type);
+    WeewxTimeSeries series = timeSeries.get(key);
+    if (series == null) {
+      series = timeSeries.computeIfAbsent(key, k -> new WeewxTimeSeries(capacity));
+    }
+    series.add(epochSecond, (float) value);
+  }
+
+  public void add(WeewxValueBatch batch) {
+    for (int i = 0; i < batch.size(); i++) {
+      add(batch.getType(i), batch.getPropertyId(i), batch.getEpochSecond(i), batch.getValue(i));
+    }
+  }
+
+  public Optional<WeewxTimeSeries> get(DevicePropertyId devicePropertyId, WeewxPropertyType type) {
+    return Optional.ofNullable(timeSeries.get(new WeewxPropertyKey(devicePropertyId, type)));
+  }
+
+  public Set<WeewxPropertyKey> getKeys() {
+    return timeSeries.keySet();
+  }
+
+  /**
+   * @return updaters that add each value to the history before publishing it
+   */
+  public WeewxValueUpdaters record(WeewxValueUpdaters valueUpdaters) {
+    return valueUpdaters.wrap(this::record);
+  }
+
+  /**
+   * @return a sink that adds the values of each batch to the history before passing it on
+   */
+  public WeewxBatchUpdateSink record(WeewxBatchUpdateSink batchSink) {
+    return batch -> {
+      add(batch);
+      batchSink.update(batch);
+    };
+  }
+
+  private WeewxValueUpdater record(WeewxPropertyType type, WeewxValueUpdater updater) {
+    return (value, dateTime, devicePropertyId, displayName) -> {
+      add(type, devicePropertyId, dateTime.toEpochSecond(), value);
+      updater.setValue(value, dateTime, devicePropertyId, displayName);
+    };
+  }
+}
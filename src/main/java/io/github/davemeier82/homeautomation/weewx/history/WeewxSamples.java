@@ -0,0 +1,29 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.history;
+
+/**
+ * Samples of a {@link WeewxTimeSeries} in ascending time order.
+ *
+ * @param epochSeconds the time of each sample, or the start of the bucket for downsampled reads
+ * @param values       the value of each sample
+ */
+public record WeewxSamples(long[] epochSeconds, float[] values) {
+
+  public int size() {
+    return epochSeconds.length;
+  }
+}
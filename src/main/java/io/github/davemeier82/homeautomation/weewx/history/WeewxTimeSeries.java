@@ -0,0 +1,196 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.history;
+
+import io.github.davemeier82.homeautomation.weewx.WeewxAggregationMode;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A fixed-size ring of the most recent values of one device property, stored as primitive epoch seconds and floats. Once full, each new
+ * value replaces the oldest one, so the memory is {@code 12 * capacity} bytes. The samples are kept sorted, which lets reads find a time
+ * range with a binary search. A value older than the newest one, e.g. of a late packet, is inserted at its position, which moves the newer
+ * ones. Once full, a value older than all samples is dropped.
+ * <p>
+ * Thread-safe for a single writer and any number of readers.
+ */
+public final class WeewxTimeSeries {
+  private final long[] epochSeconds;
+  private final float[] values;
+  private final StampedLock lock = new StampedLock();
+  private int start;
+  private int size;
+
+  public WeewxTimeSeries(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    epochSeconds = new long[capacity];
+    values = new float[capacity];
+  }
+
+  public void add(long epochSecond, float value) {
+    long stamp = lock.writeLock();
+    try {
+      if (size > 0 && epochSecond < epochSeconds[index(size - 1)]) {
+        insert(epochSecond, value);
+        return;
+      }
+      int index;
+      if (size == epochSeconds.length) {
+        index = start;
+        start = index(1);
+      } else {
+        index = index(size);
+        size++;
+      }
+      epochSeconds[index] = epochSecond;
+      values[index] = value;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * @return the samples with {@code from <= epochSecond < to}
+   */
+  public WeewxSamples range(long from, long to) {
+    long stamp = lock.readLock();
+    try {
+      int first = lowerBound(from);
+      int count = lowerBound(to) - first;
+      long[] resultEpochSeconds = new long[Math.max(0, count)];
+      float[] resultValues = new float[resultEpochSeconds.length];
+      for (int n = 0; n < resultEpochSeconds.length; n++) {
+        int index = index(first + n);
+        resultEpochSeconds[n] = epochSeconds[index];
+        resultValues[n] = values[index];
+      }
+      return new WeewxSamples(resultEpochSeconds, resultValues);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Combines the samples with {@code from <= epochSecond < to} into buckets of the given size aligned to {@code from}. Empty buckets are
+   * left out.
+   */
+  public WeewxSamples downsample(long from, long to, long bucketSeconds, WeewxAggregationMode mode) {
+    if (bucketSeconds <= 0) {
+      throw new IllegalArgumentException("bucket size must be positive");
+    }
+    if (mode == WeewxAggregationMode.VECTOR || mode == WeewxAggregationMode.GUST) {
+      throw new IllegalArgumentException(mode + " is not supported for a single time series");
+    }
+    long stamp = lock.readLock();
+    try {
+      int first = lowerBound(from);
+      int last = lowerBound(to);
+      int buckets = (int) Math.min(Math.max(0, last - first), Math.max(0, (to - from + bucketSeconds - 1) / bucketSeconds));
+      long[] resultEpochSeconds = new long[buckets];
+      float[] resultValues = new float[buckets];
+      int bucket = -1;
+      long bucketStart = Long.MIN_VALUE;
+      double aggregate = 0;
+      int count = 0;
+      for (int n = first; n < last; n++) {
+        int index = index(n);
+        long sampleBucketStart = from + Math.floorDiv(epochSeconds[index] - from, bucketSeconds) * bucketSeconds;
+        double value = values[index];
+        if (sampleBucketStart != bucketStart) {
+          if (bucket >= 0) {
+            resultValues[bucket] = (float) (mode == WeewxAggregationMode.AVERAGE ? aggregate / count : aggregate);
+          }
+          bucket++;
+          bucketStart = sampleBucketStart;
+          resultEpochSeconds[bucket] = bucketStart;
+          aggregate = value;
+          count = 1;
+          continue;
+        }
+        count++;
+        aggregate = switch (mode) {
+          case AVERAGE, SUM -> aggregate + value;
+          case MIN -> Math.min(aggregate, value);
+          case MAX -> Math.max(aggregate, value);
+          default -> value;
+        };
+      }
+      if (bucket >= 0) {
+        resultValues[bucket] = (float) (mode == WeewxAggregationMode.AVERAGE ? aggregate / count : aggregate);
+      }
+      return new WeewxSamples(Arrays.copyOf(resultEpochSeconds, bucket + 1), Arrays.copyOf(resultValues, bucket + 1));
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  public int size() {
+    long stamp = lock.readLock();
+    try {
+      return size;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  public int capacity() {
+    return epochSeconds.length;
+  }
+
+  private void insert(long epochSecond, float value) {
+    int position = lowerBound(epochSecond + 1);
+    if (size == epochSeconds.length) {
+      if (position == 0) {
+        return;
+      }
+      start = index(1);
+      size--;
+      position--;
+    }
+    for (int n = size; n > position; n--) {
+      int to = index(n);
+      int from = index(n - 1);
+      epochSeconds[to] = epochSeconds[from];
+      values[to] = values[from];
+    }
+    int index = index(position);
+    epochSeconds[index] = epochSecond;
+    values[index] = value;
+    size++;
+  }
+
+  private int lowerBound(long epochSecond) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (epochSeconds[index(middle)] < epochSecond) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private int index(int n) {
+    int index = start + n;
+    return index >= epochSeconds.length ? index - epochSeconds.length : index;
+  }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.replay;
+
+import io.github.davemeier82.homeautomation.weewx.WeewxLoopRecord;
+import io.github.davemeier82.homeautomation.weewx.WeewxMqttSubscriber;
+import io.github.davemeier82.homeautomation.weewx.WeewxObservation;
+import io.github.davemeier82.homeautomation.weewx.WeewxUnitSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static io.github.davemeier82.homeautomation.weewx.WeewxObservation.DATE_TIME;
+import static io.github.davemeier82.homeautomation.weewx.WeewxObservation.US_UNITS;
+
+/**
+ * Imports the records of a weewx archive, either a CSV export with a header line or the {@code archive} table of a database, e.g. the SQLite
+ * file of weewx with {@code jdbc:sqlite:/var/lib/weewx/weewx.sdb} and the driver on the classpath.
+ * <p>
+ * The archive is split into chunks of rows (CSV) or time ranges (JDBC) that are read and converted in parallel on threads dedicated to the
+ * import, so that neither the common pool nor the JDBC connections are shared with the application. The converted chunks are handed to
+ * {@link WeewxMqttSubscriber#processArchived(String, WeewxLoopRecord)} in archive order, so they go through the same mappings, filters and
+ * update services as live packets, but not through the watermark and the aggregation window of the live station. Records rejected as late
+ * are counted as skipped.
+ * <p>
+ * CSV fields may be quoted, with {@code ""} for a quote within a field. Quoted fields spanning several lines are not supported, such rows are
+ * skipped.
+ * <p>
+ * Archive columns are named like the observations without their unit, e.g. {@code outTemp} for {@code outTemp_C}. Records are converted
+ * from the unit system of their {@code usUnits} into METRIC, records with an unknown unit system are skipped.
+ */
+public class WeewxArchiveImporter {
+  private static final Logger log = LoggerFactory.getLogger(WeewxArchiveImporter.class);
+  private static final int CHUNK_ROWS = 10_000;
+  private static final long CHUNK_SECONDS = Duration.ofDays(7).toSeconds();
+  private static final WeewxObservation[] OBSERVATIONS = WeewxObservation.values();
+  private static final Map<String, WeewxObservation> COLUMNS = new HashMap<>();
+
+  static {
+    for (WeewxObservation observation : OBSERVATIONS) {
+      if (!observation.isDerived()) {
+        COLUMNS.put(observation.getName(), observation);
+      }
+    }
+  }
+
+  private final WeewxMqttSubscriber subscriber;
+  private final int parallelism;
+
+  public WeewxArchiveImporter(WeewxMqttSubscriber subscriber) {
+    this(subscriber, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @param parallelism the number of chunks that are read and converted at the same time
+   */
+  public WeewxArchiveImporter(WeewxMqttSubscriber subscriber, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be at least 1");
+    }
+    this.subscriber = subscriber;
+    this.parallelism = parallelism;
+  }
+
+  private ExecutorService newExecutor() {
+    return Executors.newFixedThreadPool(parallelism, Thread.ofPlatform().daemon().name("weewx-import-", 0).factory());
+  }
+
+  public WeewxReplayResult importCsv(Path file, String topic) throws IOException {
+    long start = System.nanoTime();
+    try (ExecutorService executor = newExecutor();
+         BufferedReader reader = Files.newBufferedReader(file)) {
+      Progress progress = new Progress(topic, executor);
+      String header = reader.readLine();
+      if (header != null) {
+        String[] columns = fields(header);
+        if (columns == null) {
+          throw new IOException("malformed CSV header in " + file);
+        }
+        int[] slots = slots(columns);
+        List<String> lines = new ArrayList<>(CHUNK_ROWS);
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (!line.isBlank()) {
+            lines.add(line);
+          }
+          if (lines.size() == CHUNK_ROWS) {
+            List<String> chunk = lines;
+            progress.submit(() -> parseCsv(chunk, slots));
+            lines = new ArrayList<>(CHUNK_ROWS);
+          }
+        }
+        List<String> chunk = lines;
+        progress.submit(() -> parseCsv(chunk, slots));
+      }
+      return progress.finish(file.toString(), start);
+    }
+  }
+
+  public WeewxReplayResult importJdbc(String url, String topic) throws SQLException {
+    long start = System.nanoTime();
+    try (ExecutorService executor = newExecutor()) {
+      Progress progress = new Progress(topic, executor);
+      long from;
+      long to;
+      try (Connection connection = DriverManager.getConnection(url);
+           Statement statement = connection.createStatement();
+           ResultSet resultSet = statement.executeQuery("SELECT MIN(dateTime), MAX(dateTime) FROM archive")) {
+        resultSet.next();
+        from = resultSet.getLong(1);
+        to = resultSet.getLong(2);
+        if (resultSet.wasNull()) {
+          return progress.finish(url, start);
+        }
+      }
+      for (long chunkStart = from; chunkStart <= to; chunkStart += CHUNK_SECONDS) {
+        long chunkEnd = chunkStart + CHUNK_SECONDS;
+        long rangeStart = chunkStart;
+        progress.submit(() -> queryChunk(url, rangeStart, chunkEnd));
+      }
+      return progress.finish(url, start);
+    }
+  }
+
+  private static Chunk parseCsv(List<String> lines, int[] slots) {
+    Chunk chunk = new Chunk(lines.size());
+    for (String line : lines) {
+      String[] values = fields(line);
+      if (values == null) {
+        chunk.add(null);
+        continue;
+      }
+      WeewxLoopRecord record = new WeewxLoopRecord();
+      for (int i = 0; i < Math.min(values.length, slots.length); i++) {
+        if (slots[i] >= 0) {
+          record.set(OBSERVATIONS[slots[i]], parse(values[i]));
+        }
+      }
+      chunk.add(values.length == slots.length ? record : null);
+    }
+    return chunk;
+  }
+
+  /**
+   * @return the fields of a CSV line, or null if a quoted field is not closed
+   */
+  static String[] fields(String line) {
+    if (line.indexOf('"') < 0) {
+      return line.split(",", -1);
+    }
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c != '"') {
+          field.append(c);
+        } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else {
+          quoted = false;
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    if (quoted) {
+      return null;
+    }
+    fields.add(field.toString());
+    return fields.toArray(String[]::new);
+  }
+
+  private static Chunk queryChunk(String url, long from, long to) {
+    try (Connection connection = DriverManager.getConnection(url);
+         PreparedStatement statement = connection.prepareStatement("SELECT * FROM archive WHERE dateTime >= ? AND dateTime < ? ORDER BY dateTime")) {
+      statement.setLong(1, from);
+      statement.setLong(2, to);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        String[] columns = new String[metaData.getColumnCount()];
+        for (int i = 0; i < columns.length; i++) {
+          columns[i] = metaData.getColumnLabel(i + 1);
+        }
+        int[] slots = slots(columns);
+        Chunk chunk = new Chunk(CHUNK_ROWS);
+        while (resultSet.next()) {
+          WeewxLoopRecord record = new WeewxLoopRecord();
+          for (int i = 0; i < slots.length; i++) {
+            if (slots[i] >= 0) {
+              double value = resultSet.getDouble(i + 1);
+              record.set(OBSERVATIONS[slots[i]], resultSet.wasNull() ? Double.NaN : value);
+            }
+          }
+          chunk.add(record);
+        }
+        return chunk;
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("failed to read the weewx archive from " + from + " to " + to, e);
+    }
+  }
+
+  private static int[] slots(String[] columns) {
+    int[] slots = new int[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      WeewxObservation observation = COLUMNS.get(columns[i].strip());
+      slots[i] = observation == null ? -1 : observation.ordinal();
+    }
+    return slots;
+  }
+
+  private static double parse(String value) {
+    if (value.isBlank()) {
+      return Double.NaN;
+    }
+    try {
+      return Double.parseDouble(value);
+    } catch (NumberFormatException e) {
+      return Double.NaN;
+    }
+  }
+
+  private static final class Chunk {
+    private final List<WeewxLoopRecord> records;
+
+    private Chunk(int capacity) {
+      records = new ArrayList<>(capacity);
+    }
+
+    private void add(WeewxLoopRecord record) {
+      records.add(record);
+    }
+  }
+
+  /**
+   * Keeps a bounded number of chunks in flight and processes the completed ones in submission order.
+   */
+  private final class Progress {
+    private final String topic;
+    private final ExecutorService executor;
+    private final Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+    private long rows;
+    private long skipped;
+
+    private Progress(String topic, ExecutorService executor) {
+      this.topic = topic;
+      this.executor = executor;
+    }
+
+    private void submit(Callable<Chunk> task) {
+      inFlight.addLast(executor.submit(task));
+      while (inFlight.size() > parallelism * 2) {
+        process(join(inFlight.removeFirst()));
+      }
+    }
+
+    private WeewxReplayResult finish(String source, long start) {
+      while (!inFlight.isEmpty()) {
+        process(join(inFlight.removeFirst()));
+      }
+      subscriber.flushArchived(topic);
+      WeewxReplayResult result = new WeewxReplayResult(rows, skipped, 0, Duration.ofNanos(System.nanoTime() - start));
+      log.info("imported {} weewx archive records from {} in {} ms ({} records/s, {} skipped)", result.packets(), source, result.elapsed().toMillis(),
+          Math.round(result.packetsPerSecond()), result.failures());
+      return result;
+    }
+
+    private Chunk join(Future<Chunk> future) {
+      try {
+        return future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("interrupted while importing the weewx archive", e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+          throw cause;
+        }
+        throw new IllegalStateException("failed to import the weewx archive", e.getCause());
+      }
+    }
+
+    private void process(Chunk chunk) {
+      for (WeewxLoopRecord record : chunk.records) {
+        if (record == null || !record.isPresent(DATE_TIME)) {
+          skipped++;
+          continue;
+        }
+        if (record.isPresent(US_UNITS)) {
+          Optional<WeewxUnitSystem> unitSystem = WeewxUnitSystem.of(record.get(US_UNITS));
+          if (unitSystem.isEmpty()) {
+            skipped++;
+            continue;
+          }
+          unitSystem.get().toMetric(record, record.getPresenceMask());
+        }
+        try {
+          if (subscriber.processArchived(topic, record)) {
+            rows++;
+          } else {
+            skipped++;
+          }
+        } catch (RuntimeException e) {
+          skipped++;
+          log.debug("failed to import weewx archive record {}", record.get(DATE_TIME), e);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.replay;
+
+import io.github.davemeier82.homeautomation.weewx.WeewxIngestionPipeline;
+import io.github.davemeier82.homeautomation.weewx.WeewxLoopPacketDecoder;
+import io.github.davemeier82.homeautomation.weewx.WeewxMqttSubscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Replays recorded loop packets, one JSON object per line, through {@link WeewxMqttSubscriber#processReplayed(String, ByteBuffer)}, i.e. like
+ * packets received from the broker but without recording them as live traffic. The file is memory-mapped in regions and every line is passed
+ * as a slice of the read-only mapping, so the payloads are not copied.
+ * <p>
+ * With a speed of 0 or less, the packets are replayed as fast as possible. Otherwise, the replay is paced by the {@code dateTime} of the
+ * packets, e.g. a speed of 10 replays an hour of packets in six minutes. Lines that cannot be processed are counted and skipped.
+ * <p>
+ * With the {@link WeewxIngestionPipeline}, the replay waits for the pipeline to process the submitted packets before it stops the clock, and
+ * the packets the pipeline dropped meanwhile are reported.
+ */
+public class WeewxLoopReplayer {
+  private static final Logger log = LoggerFactory.getLogger(WeewxLoopReplayer.class);
+  private static final long REGION_SIZE = 64L * 1024 * 1024;
+
+  private final WeewxMqttSubscriber subscriber;
+  private final long regionSize;
+
+  public WeewxLoopReplayer(WeewxMqttSubscriber subscriber) {
+    this(subscriber, REGION_SIZE);
+  }
+
+  WeewxLoopReplayer(WeewxMqttSubscriber subscriber, long regionSize) {
+    this.subscriber = subscriber;
+    this.regionSize = regionSize;
+  }
+
+  /**
+   * @param file  newline-delimited loop packets
+   * @param topic the topic the packets are published to
+   * @param speed the factor to real time, or 0 to replay as fast as possible
+   */
+  public WeewxReplayResult replay(Path file, String topic, double speed) throws IOException {
+    Pacer pacer = speed > 0 ? new Pacer(speed) : null;
+    Optional<WeewxIngestionPipeline> pipeline = subscriber.getPipeline();
+    long droppedBefore = pipeline.map(WeewxIngestionPipeline::getDroppedCount).orElse(0L);
+    long packets = 0;
+    long failures = 0;
+    long start = System.nanoTime();
+    try (FileChannel channel = FileChannel.open(file, READ)) {
+      long size = channel.size();
+      long regionStart = 0;
+      while (regionStart < size && !Thread.currentThread().isInterrupted()) {
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, Math.min(regionSize, size - regionStart));
+        boolean last = regionStart + region.limit() == size;
+        int lineStart = 0;
+        for (int i = 0; i < region.limit(); i++) {
+          if (region.get(i) == '\n' || (last && i == region.limit() - 1)) {
+            int lineEnd = region.get(i) == '\n' ? i : i + 1;
+            ByteBuffer line = trim(region, lineStart, lineEnd);
+            long offset = regionStart + lineStart;
+            lineStart = i + 1;
+            if (line == null) {
+              continue;
+            }
+            try {
+              if (pacer != null && !pacer.await(line)) {
+                break;
+              }
+              subscriber.processReplayed(topic, line);
+              packets++;
+            } catch (RuntimeException e) {
+              failures++;
+              log.debug("failed to replay line at offset {}", offset, e);
+            }
+          }
+        }
+        if (lineStart == 0 && !last) {
+          throw new IOException("line at offset " + regionStart + " is longer than " + regionSize + " bytes");
+        }
+        regionStart += lineStart;
+      }
+    }
+    long dropped = 0;
+    if (pipeline.isPresent()) {
+      try {
+        pipeline.get().awaitIdle();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      dropped = pipeline.get().getDroppedCount() - droppedBefore;
+    }
+    subscriber.flush();
+    WeewxReplayResult result = new WeewxReplayResult(packets, failures, dropped, Duration.ofNanos(System.nanoTime() - start));
+    log.info("replayed {} weewx loop packets from {} in {} ms ({} packets/s, {} failures, {} dropped)", result.packets(), file,
+        result.elapsed().toMillis(), Math.round(result.packetsPerSecond()), result.failures(), result.dropped());
+    return result;
+  }
+
+  private static ByteBuffer trim(ByteBuffer region, int start, int end) {
+    while (start < end && isWhitespace(region.get(start))) {
+      start++;
+    }
+    while (end > start && isWhitespace(region.get(end - 1))) {
+      end--;
+    }
+    return start == end ? null : region.slice(start, end - start);
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\r' || b == '\t' || b == '\n';
+  }
+
+  private static final class Pacer {
+    private final double speed;
+    private long startNanos;
+    private double startEpochSeconds = Double.NaN;
+
+    private Pacer(double speed) {
+      this.speed = speed;
+    }
+
+    /**
+     * @return false if the replay was interrupted
+     */
+    private boolean await(ByteBuffer line) {
+      double epochSeconds = WeewxLoopPacketDecoder.dateTimeOf(line);
+      if (Double.isNaN(epochSeconds)) {
+        return true;
+      }
+      if (Double.isNaN(startEpochSeconds)) {
+        startEpochSeconds = epochSeconds;
+        startNanos = System.nanoTime();
+        return true;
+      }
+      long due = startNanos + (long) ((epochSeconds - startEpochSeconds) / speed * 1_000_000_000L);
+      long remaining;
+      while ((remaining = due - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(remaining);
+        if (Thread.currentThread().isInterrupted()) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
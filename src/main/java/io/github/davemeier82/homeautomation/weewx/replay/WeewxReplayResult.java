@@ -0,0 +1,32 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.replay;
+
+import java.time.Duration;
+
+/**
+ * @param packets  the number of loop packets handed to the subscriber
+ * @param failures the number of lines that could not be processed
+ * @param dropped  the number of packets the ingestion pipeline dropped
+ * @param elapsed  the wall-clock time of the replay
+ */
+public record WeewxReplayResult(long packets, long failures, long dropped, Duration elapsed) {
+
+  public double packetsPerSecond() {
+    long nanos = elapsed.toNanos();
+    return nanos == 0 ? 0 : packets * 1_000_000_000.0 / nanos;
+  }
+}
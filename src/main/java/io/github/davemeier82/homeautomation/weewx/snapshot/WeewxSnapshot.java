@@ -0,0 +1,226 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.snapshot;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.weewx.WeewxBatchUpdateSink;
+import io.github.davemeier82.homeautomation.weewx.WeewxPropertyKey;
+import io.github.davemeier82.homeautomation.weewx.WeewxPropertyType;
+import io.github.davemeier82.homeautomation.weewx.WeewxTimestamps;
+import io.github.davemeier82.homeautomation.weewx.WeewxValueUpdaters;
+import io.github.davemeier82.homeautomation.weewx.device.WeewxDeviceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * The latest published value of every device property, periodically written to a binary file so that the values can be published again
+ * right after a restart, before the first loop packet arrives.
+ * <p>
+ * The file is written to a temporary file next to it, forced to the disk and renamed atomically, so a crash or a power loss while writing
+ * keeps the previous snapshot. Writes are serialized, and {@link #close()} waits for a running periodic write before the final one. Values
+ * that are added again unchanged, e.g. when the restored values are published, do not cause a write.
+ */
+public class WeewxSnapshot implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(WeewxSnapshot.class);
+  private static final int MAGIC = 0x57585331;
+
+  private final Path file;
+  private final Map<WeewxPropertyKey, Entry> entries = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService scheduler;
+  private volatile boolean dirty;
+
+  /**
+   * @param file     the snapshot file
+   * @param interval how often the snapshot is written if a value changed, or zero to only write it on {@link #close()}
+   */
+  public WeewxSnapshot(Path file, Duration interval) {
+    this.file = file;
+    if (interval.isPositive()) {
+      scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("weewx-snapshot").factory());
+      scheduler.scheduleWithFixedDelay(this::writeIfDirty, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    } else {
+      scheduler = null;
+    }
+  }
+
+  public void add(WeewxPropertyType type, DevicePropertyId devicePropertyId, String displayName, double value, long epochSecond) {
+    Entry entry = new Entry(type, devicePropertyId, displayName, value, epochSecond);
+    if (!entry.equals(entries.put(new WeewxPropertyKey(devicePropertyId, type), entry))) {
+      dirty = true;
+    }
+  }
+
+  /**
+   * @return updaters that add each value to the snapshot before publishing it
+   */
+  public WeewxValueUpdaters record(WeewxValueUpdaters valueUpdaters) {
+    return valueUpdaters.wrap((type, updater) -> (value, dateTime, devicePropertyId, displayName) -> {
+      add(type, devicePropertyId, displayName, value, dateTime.toEpochSecond());
+      updater.setValue(value, dateTime, devicePropertyId, displayName);
+    });
+  }
+
+  /**
+   * @return a sink that adds the values of each batch to the snapshot before passing it on
+   */
+  public WeewxBatchUpdateSink record(WeewxBatchUpdateSink batchSink) {
+    return batch -> {
+      for (int i = 0; i < batch.size(); i++) {
+        add(batch.getType(i), batch.getPropertyId(i), batch.getDisplayName(i), batch.getValue(i), batch.getEpochSecond(i));
+      }
+      batchSink.update(batch);
+    };
+  }
+
+  /**
+   * Reads the snapshot file and publishes its values. Values that were already added since the start, e.g. from a packet received before the
+   * update services were ready, are newer and are not published again.
+   *
+   * @param valueUpdaters  publishes the values
+   * @param deviceResolver called once per device before its values are published
+   * @return the number of published values
+   */
+  public int restore(WeewxValueUpdaters valueUpdaters, Consumer<DeviceId> deviceResolver) {
+    List<Entry> restored;
+    try {
+      restored = read();
+    } catch (NoSuchFileException e) {
+      return 0;
+    } catch (IOException | RuntimeException e) {
+      log.warn("failed to read weewx snapshot {}", file, e);
+      return 0;
+    }
+    Set<DeviceId> devices = new HashSet<>();
+    int published = 0;
+    for (Entry entry : restored) {
+      if (entries.putIfAbsent(new WeewxPropertyKey(entry.devicePropertyId(), entry.type()), entry) != null) {
+        continue;
+      }
+      if (devices.add(entry.devicePropertyId().deviceId())) {
+        deviceResolver.accept(entry.devicePropertyId().deviceId());
+      }
+      OffsetDateTime dateTime = WeewxTimestamps.toDateTime(entry.epochSecond());
+      valueUpdaters.get(entry.type()).setValue(entry.value(), dateTime, entry.devicePropertyId(), entry.displayName());
+      published++;
+    }
+    log.info("restored {} weewx values from {}", published, file);
+    return published;
+  }
+
+  private List<Entry> read() throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("not a weewx snapshot");
+      }
+      int count = in.readInt();
+      List<Entry> restored = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        DeviceId deviceId = new DeviceId(in.readUTF(), WeewxDeviceType.WEEWX);
+        DevicePropertyId devicePropertyId = new DevicePropertyId(deviceId, in.readUTF());
+        String type = in.readUTF();
+        String displayName = in.readUTF();
+        double value = in.readDouble();
+        long epochSecond = in.readLong();
+        if (Arrays.stream(WeewxPropertyType.values()).anyMatch(t -> t.name().equals(type))) {
+          restored.add(new Entry(WeewxPropertyType.valueOf(type), devicePropertyId, displayName, value, epochSecond));
+        } else {
+          log.debug("skipped weewx snapshot value of unknown type {}", type);
+        }
+      }
+      return restored;
+    }
+  }
+
+  public synchronized void write() throws IOException {
+    dirty = false;
+    List<Entry> values = List.copyOf(entries.values());
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, CREATE, TRUNCATE_EXISTING, WRITE);
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(values.size());
+      for (Entry entry : values) {
+        out.writeUTF(entry.devicePropertyId().deviceId().id());
+        out.writeUTF(entry.devicePropertyId().id());
+        out.writeUTF(entry.type().name());
+        out.writeUTF(entry.displayName());
+        out.writeDouble(entry.value());
+        out.writeLong(entry.epochSecond());
+      }
+      out.flush();
+      channel.force(true);
+    }
+    Files.move(temporary, file, ATOMIC_MOVE, REPLACE_EXISTING);
+  }
+
+  private synchronized void writeIfDirty() {
+    if (dirty) {
+      try {
+        write();
+      } catch (IOException | RuntimeException e) {
+        dirty = true;
+        log.warn("failed to write weewx snapshot {}", file, e);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    if (scheduler != null) {
+      scheduler.shutdown();
+      try {
+        if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+          log.warn("weewx snapshot writer did not finish within 5 seconds");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    writeIfDirty();
+  }
+
+  private record Entry(WeewxPropertyType type, DevicePropertyId devicePropertyId, String displayName, double value, long epochSecond) {
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.weewx.device.WeewxDeviceType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static io.github.davemeier82.homeautomation.weewx.WeewxObservation.*;
+import static io.github.davemeier82.homeautomation.weewx.WeewxPropertyType.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeewxDeadbandFilterTest {
+
+  @Test
+  void dropValuesWithinDeadbandUntilHeartbeat() {
+    WeewxDispatchTable table = new WeewxDispatchTable(new DeviceId("weather", WeewxDeviceType.WEEWX), List.of(
+        new WeewxPropertyMapping(OUT_TEMP_C, TEMPERATURE, "outdoorTemperature", "Outdoor Temperature"),
+        new WeewxPropertyMapping(BAROMETER_MBAR, PRESSURE, "barometer", "Barometer")
+    ), new WeewxValueUpdaters(Map.of(TEMPERATURE, (value, dateTime, id, displayName) -> {}, PRESSURE, (value, dateTime, id, displayName) -> {})));
+    WeewxProperties.Band temperatureBand = new WeewxProperties.Band();
+    temperatureBand.setAbsolute(0.2);
+    WeewxProperties.Deadband deadband = new WeewxProperties.Deadband();
+    deadband.setRelative(0.001);
+    deadband.setHeartbeat(Duration.ofMinutes(1));
+    deadband.setObservations(Map.of("outTemp_C", temperatureBand));
+    WeewxDeadbandFilter filter = new WeewxDeadbandFilter(table, deadband);
+
+    assertThat(filter.accept(0, 20.0, 0)).isTrue();
+    assertThat(filter.accept(0, 20.2, 2)).isFalse();
+    assertThat(filter.accept(0, 20.3, 4)).isTrue();
+    assertThat(filter.accept(0, 20.3, 63)).isFalse();
+    assertThat(filter.accept(0, 20.3, 64)).isTrue();
+
+    assertThat(filter.accept(1, 1000.0, 0)).isTrue();
+    assertThat(filter.accept(1, 1000.9, 2)).isFalse();
+    assertThat(filter.accept(1, 1001.1, 4)).isTrue();
+  }
+
+  @Test
+  void acceptRepeatedDeltaValues() {
+    WeewxDispatchTable table = new WeewxDispatchTable(new DeviceId("weather", WeewxDeviceType.WEEWX), List.of(
+        new WeewxPropertyMapping(RAIN_CM, RAIN_INTERVAL, "rain", "Rain")
+    ), new WeewxValueUpdaters(Map.of(RAIN_INTERVAL, (value, dateTime, id, displayName) -> {})));
+    WeewxProperties.Deadband deadband = new WeewxProperties.Deadband();
+    deadband.setAbsolute(1.0);
+    deadband.setHeartbeat(Duration.ofMinutes(15));
+    WeewxDeadbandFilter filter = new WeewxDeadbandFilter(table, deadband);
+
+    assertThat(filter.accept(0, 0.254, 0)).isTrue();
+    assertThat(filter.accept(0, 0.254, 2)).isTrue();
+    assertThat(filter.accept(0, 0.0, 4)).isTrue();
+  }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import org.junit.jupiter.api.Test;
+
+import static io.github.davemeier82.homeautomation.weewx.WeewxObservation.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class WeewxDerivedMetricsTest {
+
+  private final WeewxDerivedMetrics derivedMetrics = new WeewxDerivedMetrics();
+
+  @Test
+  void rollRainAndStrikes() {
+    apply(0, 0.1, 2);
+    apply(5 * 60, 0.2, 1);
+    WeewxLoopRecord record = apply(20 * 60, 0.0, 0);
+
+    assertThat(record.get(RAIN_LAST_HOUR_CM)).isCloseTo(0.3, within(1e-12));
+    assertThat(record.get(LIGHTNING_STRIKES_LAST_10_MINUTES)).isZero();
+    assertThat(record.get(LIGHTNING_STRIKES_LAST_30_MINUTES)).isEqualTo(3.0);
+
+    record = apply(66 * 60, 0.05, 0);
+
+    assertThat(record.get(RAIN_LAST_HOUR_CM)).isCloseTo(0.05, within(1e-12));
+    assertThat(record.get(RAIN_LAST_24_HOURS_CM)).isCloseTo(0.35, within(1e-12));
+    assertThat(record.get(LIGHTNING_STRIKES_LAST_30_MINUTES)).isZero();
+
+    record = apply(27 * 60 * 60, 0.0, 0);
+
+    assertThat(record.get(RAIN_LAST_24_HOURS_CM)).isZero();
+  }
+
+  @Test
+  void useDayRainAcrossCounterReset() {
+    applyDayRain(0, 1.0);
+    applyDayRain(60, 1.2);
+    WeewxLoopRecord record = applyDayRain(120, 0.1);
+
+    assertThat(record.get(RAIN_LAST_HOUR_CM)).isCloseTo(0.3, within(1e-12));
+  }
+
+  private WeewxLoopRecord apply(long epochSecond, double rain, int strikes) {
+    WeewxLoopRecord record = new WeewxLoopRecord();
+    record.set(RAIN_CM, rain);
+    record.set(LIGHTNING_STRIKE_COUNT, strikes);
+    derivedMetrics.apply(record, epochSecond);
+    return record;
+  }
+
+  private WeewxLoopRecord applyDayRain(long epochSecond, double dayRain) {
+    WeewxLoopRecord record = new WeewxLoopRecord();
+    record.set(DAY_RAIN_CM, dayRain);
+    derivedMetrics.apply(record, epochSecond);
+    return record;
+  }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import io.github.davemeier82.homeautomation.core.device.Device;
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.repositories.DeviceRepository;
+import io.github.davemeier82.homeautomation.weewx.device.WeewxDeviceType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeewxDeviceResolverTest {
+
+  private static final DeviceId WEATHER = new DeviceId("weather", WeewxDeviceType.WEEWX);
+  private static final DeviceId GARDEN = new DeviceId("garden", WeewxDeviceType.WEEWX);
+
+  private final CountingRepository repository = new CountingRepository();
+  private final WeewxDeviceResolver resolver = new WeewxDeviceResolver(repository, new WeewxDeviceFactory());
+
+  @Test
+  void createDeviceOnceForConcurrentFirstPackets() throws Exception {
+    repository.blockLookups();
+    try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+      List<Future<Device>> devices = List.of(
+          executor.submit(() -> resolver.resolve(WEATHER)),
+          executor.submit(() -> resolver.resolve(WEATHER)),
+          executor.submit(() -> resolver.resolve(WEATHER)),
+          executor.submit(() -> resolver.resolve(WEATHER)));
+      assertThat(repository.lookupStarted.await(5, TimeUnit.SECONDS)).isTrue();
+      repository.releaseLookups();
+
+      Device first = devices.getFirst().get(5, TimeUnit.SECONDS);
+      for (Future<Device> device : devices) {
+        assertThat(device.get(5, TimeUnit.SECONDS)).isSameAs(first);
+      }
+    }
+
+    assertThat(repository.lookups.get()).isEqualTo(1);
+    assertThat(repository.saves.get()).isEqualTo(1);
+    assertThat(repository.devices.get(WEATHER).getId()).isEqualTo("weather");
+  }
+
+  @Test
+  void useExistingDevice() {
+    Device existing = new WeewxDeviceFactory().createDevice(WeewxDeviceType.WEEWX, "weather", "Weather", Map.of(), Map.of()).orElseThrow();
+    repository.save(existing);
+
+    assertThat(resolver.resolve(WEATHER)).isSameAs(existing);
+    assertThat(resolver.resolve(WEATHER)).isSameAs(existing);
+    assertThat(repository.lookups.get()).isEqualTo(1);
+    assertThat(repository.saves.get()).isEqualTo(1);
+  }
+
+  @Test
+  void resolveAgainAfterInvalidate() {
+    Device weather = resolver.resolve(WEATHER);
+    Device garden = resolver.resolve(GARDEN);
+    Device renamed = new WeewxDeviceFactory().createDevice(WeewxDeviceType.WEEWX, "weather", "Renamed", Map.of(), Map.of()).orElseThrow();
+    repository.devices.put(WEATHER, renamed);
+
+    resolver.invalidate(WEATHER);
+
+    assertThat(resolver.resolve(WEATHER)).isSameAs(renamed).isNotSameAs(weather);
+    assertThat(resolver.resolve(GARDEN)).isSameAs(garden);
+    assertThat(repository.lookups.get()).isEqualTo(3);
+  }
+
+  @Test
+  void recreateDeletedDeviceAfterRevalidation() {
+    MutableClock clock = new MutableClock();
+    WeewxDeviceResolver resolver = new WeewxDeviceResolver(repository, new WeewxDeviceFactory(), Duration.ofMinutes(5), clock);
+    Device weather = resolver.resolve(WEATHER);
+    repository.devices.clear();
+
+    clock.advance(Duration.ofMinutes(4));
+    assertThat(resolver.resolve(WEATHER)).isSameAs(weather);
+    clock.advance(Duration.ofMinutes(1));
+    Device recreated = resolver.resolve(WEATHER);
+    clock.advance(Duration.ofMinutes(1));
+
+    assertThat(resolver.resolve(WEATHER)).isSameAs(recreated).isNotSameAs(weather);
+    assertThat(repository.devices).containsEntry(WEATHER, recreated);
+    assertThat(repository.lookups.get()).isEqualTo(2);
+    assertThat(repository.saves.get()).isEqualTo(2);
+  }
+
+  @Test
+  void resolveAllAgainAfterInvalidateAll() {
+    resolver.resolve(WEATHER);
+    resolver.resolve(GARDEN);
+    repository.devices.clear();
+
+    resolver.invalidateAll();
+    resolver.resolve(WEATHER);
+    resolver.resolve(GARDEN);
+
+    assertThat(repository.lookups.get()).isEqualTo(4);
+    assertThat(repository.saves.get()).isEqualTo(4);
+  }
+
+  private static final class MutableClock extends Clock {
+    private Instant instant = Instant.ofEpochSecond(1_000_000);
+
+    private void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+
+  private static final class CountingRepository implements DeviceRepository {
+    private final Map<DeviceId, Device> devices = new ConcurrentHashMap<>();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicInteger saves = new AtomicInteger();
+    private final CountDownLatch lookupStarted = new CountDownLatch(1);
+    private volatile CountDownLatch lookupReleased = new CountDownLatch(0);
+
+    private void blockLookups() {
+      lookupReleased = new CountDownLatch(1);
+    }
+
+    private void releaseLookups() {
+      lookupReleased.countDown();
+    }
+
+    @Override
+    public Optional<Device> getByDeviceId(DeviceId deviceId) {
+      lookups.incrementAndGet();
+      lookupStarted.countDown();
+      try {
+        lookupReleased.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return Optional.ofNullable(devices.get(deviceId));
+    }
+
+    @Override
+    public void save(Device device) {
+      saves.incrementAndGet();
+      devices.put(new DeviceId(device.getId(), device.getType()), device);
+    }
+  }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.weewx.device.WeewxDeviceType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.github.davemeier82.homeautomation.weewx.WeewxObservation.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WeewxDispatchTableTest {
+
+  private final DeviceId deviceId = new DeviceId("weather", WeewxDeviceType.WEEWX);
+  private final List<String> updates = new ArrayList<>();
+  private final WeewxValueUpdaters valueUpdaters;
+
+  WeewxDispatchTableTest() {
+    Map<WeewxPropertyType, WeewxValueUpdater> updaters = new EnumMap<>(WeewxPropertyType.class);
+    for (WeewxPropertyType type : WeewxPropertyType.values()) {
+      updaters.put(type, (value, dateTime, id, displayName) -> updates.add(type + " " + id.id() + " " + displayName + " " + value + " " + dateTime.toEpochSecond()));
+    }
+    valueUpdaters = new WeewxValueUpdaters(updaters);
+  }
+
+  @Test
+  void dispatchPresentObservations() {
+    WeewxDispatchTable table = new WeewxDispatchTable(deviceId, WeewxPropertyMappings.defaults(), valueUpdaters);
+    WeewxLoopRecord record = new WeewxLoopRecord();
+    record.set(OUT_TEMP_C, 21.5);
+    record.set(DAY_RAIN_CM, 0.25);
+    record.set(LIGHTNING_DISTANCE_KM, 12.4);
+    record.set(LIGHTNING_LAST_DET_TIME, 1000.0);
+
+    table.dispatch(record, 2000);
+
+    assertThat(updates).containsExactly(
+        "TEMPERATURE outdoorTemperature Outdoor Temperature 21.5 2000",
+        "RAIN_TODAY rain Rain Today 2.5 2000",
+        "LIGHTNING_DISTANCE lightning Lightning Distance 12.4 1000");
+  }
+
+  @Test
+  void collectPacketIntoBatch() {
+    WeewxDispatchTable table = new WeewxDispatchTable(deviceId, WeewxPropertyMappings.defaults(), valueUpdaters);
+    WeewxValueBatch batch = new WeewxValueBatch(deviceId, table.size());
+    WeewxLoopRecord record = new WeewxLoopRecord();
+    record.set(OUT_TEMP_C, 21.5);
+    record.set(LIGHTNING_DISTANCE_KM, 12.4);
+    record.set(LIGHTNING_LAST_DET_TIME, 1000.0);
+
+    table.collect(record, 2000, WeewxValueFilter.ACCEPT_ALL, batch);
+
+    assertThat(updates).isEmpty();
+    assertThat(batch.size()).isEqualTo(2);
+    assertThat(batch.getDateTime().toEpochSecond()).isEqualTo(2000);
+    assertThat(batch.getType(0)).isEqualTo(WeewxPropertyType.TEMPERATURE);
+    assertThat(batch.getPropertyId(0).id()).isEqualTo("outdoorTemperature");
+    assertThat(batch.getValue(0)).isEqualTo(21.5);
+    assertThat(batch.getDateTime(1).toEpochSecond()).isEqualTo(1000);
+
+    table.collect(new WeewxLoopRecord(), System.currentTimeMillis() / 1000, WeewxValueFilter.ACCEPT_ALL, batch);
+
+    assertThat(batch.isEmpty()).isTrue();
+  }
+
+  @Test
+  void collectEntriesSharingAPropertyId() {
+    WeewxDispatchTable table = new WeewxDispatchTable(deviceId, WeewxPropertyMappings.defaults(), valueUpdaters);
+    WeewxValueBatch batch = new WeewxValueBatch(deviceId, table.size());
+    WeewxLoopRecord record = new WeewxLoopRecord();
+    record.set(WIND_SPEED_KPH, 12.0);
+    record.set(WIND_DIR, 270.0);
+
+    table.collect(record, 2000, WeewxValueFilter.ACCEPT_ALL, batch);
+
+    assertThat(batch.size()).isEqualTo(2);
+    assertThat(batch.getPropertyId(0)).isEqualTo(batch.getPropertyId(1));
+    assertThat(batch.getType(0)).isNotEqualTo(batch.getType(1));
+  }
+
+  @Test
+  void applyConfiguredMappings() {
+    WeewxProperties.Mapping renamed = new WeewxProperties.Mapping();
+    renamed.setDisplayName("Garden Temperature");
+    WeewxProperties.Mapping added = new WeewxProperties.Mapping();
+    added.setType(WeewxPropertyType.TEMPERATURE);
+    added.setPropertyId("heatIndex");
+    WeewxProperties.Mapping disabled = new WeewxProperties.Mapping();
+    disabled.setEnabled(false);
+    List<WeewxPropertyMapping> mappings = WeewxPropertyMappings.withOverrides(WeewxPropertyMappings.defaults(),
+        Map.of("outTemp_C", renamed, "heatindex_C", added, "inTemp_C", disabled));
+    WeewxDispatchTable table = new WeewxDispatchTable(deviceId, mappings, valueUpdaters);
+    WeewxLoopRecord record = new WeewxLoopRecord();
+    record.set(IN_TEMP_C, 22.0);
+    record.set(OUT_TEMP_C, 21.5);
+    record.set(HEATINDEX_C, 23.0);
+
+    table.dispatch(record, System.currentTimeMillis() / 1000);
+
+    assertThat(updates).hasSize(2).anyMatch(u -> u.startsWith("TEMPERATURE outdoorTemperature Garden Temperature 21.5"))
+        .anyMatch(u -> u.startsWith("TEMPERATURE heatIndex heatIndex 23.0"));
+  }
+
+  @Test
+  void dispatchExtraKey() {
+    WeewxProperties.Mapping soilMoisture = new WeewxProperties.Mapping();
+    soilMoisture.setType(WeewxPropertyType.HUMIDITY);
+    soilMoisture.setPropertyId("soilMoisture1");
+    List<WeewxPropertyMapping> mappings = WeewxPropertyMappings.withOverrides(WeewxPropertyMappings.defaults(), Map.of("soilMoist1", soilMoisture));
+    WeewxLoopPacketDecoder decoder = new WeewxLoopPacketDecoder(WeewxPropertyMappings.extraKeys(mappings));
+    WeewxDispatchTable table = new WeewxDispatchTable(deviceId, mappings, valueUpdaters);
+    WeewxLoopRecord record = new WeewxLoopRecord();
+
+    decoder.decode(ByteBuffer.wrap("{\"dateTime\": 2000.0, \"soilMoist1\": \"41.0\", \"soilMoist2\": \"12.0\"}".getBytes(UTF_8)), record);
+    table.dispatch(record, 2000);
+
+    assertThat(record.size()).isEqualTo(2);
+    assertThat(updates).containsExactly("HUMIDITY soilMoisture1 soilMoisture1 41.0 2000");
+  }
+
+  @Test
+  void rejectUnknownObservation() {
+    assertThatThrownBy(() -> WeewxPropertyMappings.withOverrides(WeewxPropertyMappings.defaults(), Map.of("unknown_C", new WeewxProperties.Mapping())))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.weewx;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class WeewxIngestionPipelineTest {
+
+  @Test
+  void queuePacketsWhileWorkerIsBusy() throws InterruptedException {
+    BlockingProcessor processor = new BlockingProcessor();
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    try (WeewxIngestionPipeline pipeline = new WeewxIngestionPipeline(pipeline(4, WeewxIngestionPipeline.OverflowPolicy.DROP_OLDEST), new WeewxLoopPacketDecoder(),
+        processor)) {
+      new WeewxMicrometerMetrics(registry).bind(pipeline);
+      pipeline.submit("weather/loop", packet(0));
+      processor.awaitFirst();
+      for (int i = 1; i <= 3; i++) {
+        pipeline.submit("weather/loop", packet(i));
+      }
+
+      assertThat(pipeline.getQueueDepth()).isEqualTo(3);
+      assertThat(registry.get("weewx.pipeline.queue.depth").gauge().value()).isEqualTo(3);
+      assertThat(registry.get("weewx.pipeline.capacity").gauge().value()).isEqualTo(4);
+      processor.release();
+    }
+
+    assertThat(processor.payloads).containsExactly(0, 1, 2, 3);
+    assertThat(registry.get("weewx.pipeline.processed").functionCounter().count()).isEqualTo(4);
+    assertThat(registry.get("weewx.pipeline.queue.depth").gauge().value()).isZero();
+  }
+
+  @Test
+  void drainPendingPacketsOnClose() throws InterruptedException {
+    BlockingProcessor processor = new BlockingProcessor();
+    WeewxIngestionPipeline pipeline = new WeewxIngestionPipeline(pipeline(8, WeewxIngestionPipeline.OverflowPolicy.BLOCK), new WeewxLoopPacketDecoder(), processor);
+    pipeline.submit("weather/loop", packet(0));
+    processor.awaitFirst();
+    for (int i = 1; i <= 5; i++) {
+      pipeline.submit("weather/loop", packet(i));
+    }
+
+    processor.release();
+    pipeline.close();
+    pipeline.submit("weather/loop", packet(6));
+
+    assertThat(processor.payloads).containsExactly(0, 1, 2, 3, 4, 5);
+    assertThat(pipeline.getProcessedCount()).isEqualTo(6);
+    assertThat(pipeline.getDroppedCount()).isEqualTo(1);
+    assertThat(pipeline.getQueueDepth()).isZero();
+  }
+
+  @Test
+  void rejectInvalidWorkersAndCapacity() {
+    WeewxProperties.Pipeline noWorkers = pipeline(4, WeewxIngestionPipeline.OverflowPolicy.BLOCK);
+    noWorkers.setWorkers(0);
+    WeewxProperties.Pipeline tooSmall = pipeline(2, WeewxIngestionPipeline.OverflowPolicy.BLOCK);
+    tooSmall.setWorkers(4);
+
+    assertThatThrownBy(() -> new WeewxIngestionPipeline(noWorkers, new WeewxLoopPacketDecoder(), new BlockingProcessor()))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new WeewxIngestionPipeline(tooSmall, new WeewxLoopPacketDecoder(), new BlockingProcessor()))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void dropOldestPacketWhenFull() throws InterruptedException {
+    BlockingProcessor processor = new BlockingProcessor();
+
+    try (WeewxIngestionPipeline pipeline = new WeewxIngestionPipeline(pipeline(2, WeewxIngestionPipeline.OverflowPolicy.DROP_OLDEST), new WeewxLoopPacketDecoder(),
+        processor)) {
+      pipeline.submit("weather/loop", packet(0));
+      processor.awaitFirst();
+      for (int i = 1; i <= 4; i++) {
+        pipeline.submit("weather/loop", packet(i));
+      }
+
+      assertThat(pipeline.getDroppedCount()).isEqualTo(2);
+      processor.release();
+    }
+
+    assertThat(processor.payloads).containsExactly(0, 3, 4);
+  }
+
+  @Test
+  void coalescePendingPacketsOfATopic() throws InterruptedException {
+    BlockingProcessor processor = new BlockingProcessor();
+
+    try (WeewxIngestionPipeline pipeline = new WeewxIngestionPipeline(pipeline(4, WeewxIngestionPipeline.OverflowPolicy.COALESCE_LATEST), new WeewxLoopPacketDecoder(),
+        processor)) {
+      pipeline.submit("weather/loop", json("{\"dateTime\": 1.0}"));
+      processor.awaitFirst();
+      pipeline.submit("weather/loop", json("{\"dateTime\": 2.0, \"outTemp_C\": 20.5}"));
+      pipeline.submit("weather/loop", json("{\"dateTime\": 3.0, \"UV\": 2.0}"));
+      pipeline.submit("weather/loop", json("{\"dateTime\": "));
+      pipeline.submit("weather/other", json("{\"dateTime\": 4.0}"));
+
+      assertThat(pipeline.getQueueDepth()).isEqualTo(2);
+      assertThat(pipeline.getCoalescedCount()).isEqualTo(1);
+      assertThat(pipeline.getRejectedCount()).isEqualTo(1);
+      processor.release();
+    }
+
+    assertThat(processor.records).hasSize(1);
+    WeewxLoopRecord coalesced = processor.records.getFirst();
+    assertThat(coalesced.get(WeewxObservation.DATE_TIME)).isEqualTo(3.0);
+    assertThat(coalesced.get(WeewxObservation.OUT_TEMP_C)).isEqualTo(20.5);
+    assertThat(coalesced.get(WeewxObservation.UV)).isEqualTo(2.0);
+    assertThat(processor.payloads).hasSize(2);
+  }
+
+  @Test
+  void coalesceWithTheLayoutOfTheStation() throws InterruptedException {
+    WeewxLoopPacketDecoder decoder = new WeewxLoopPacketDecoder();
+    WeewxLoopPacketDecoder.Layout layout = new WeewxLoopPacketDecoder.Layout();
+    decoder.decode(json("{\"dateTime\": 1.0, \"usUnits\": 1, \"outTemp\": 50.0}"), new WeewxLoopRecord(), layout);
+    BlockingProcessor processor = new BlockingProcessor(layout);
+
+    try (WeewxIngestionPipeline pipeline = new WeewxIngestionPipeline(pipeline(4, WeewxIngestionPipeline.OverflowPolicy.COALESCE_LATEST), decoder, processor)) {
+      pipeline.submit("weather/loop", json("{\"dateTime\": 1.0}"));
+      processor.awaitFirst();
+      pipeline.submit("weather/loop", json("{\"dateTime\": 2.0, \"outTemp\": 50.0}"));
+      pipeline.submit("weather/loop", json("{\"dateTime\": 3.0, \"barometer\": 30.0}"));
+      pipeline.submit("weather/loop", json("{\"dateTime\": 4.0, \"outTemp\": 68.0}"));
+      processor.release();
+    }
+
+    assertThat(processor.records).hasSize(1);
+    WeewxLoopRecord coalesced = processor.records.getFirst();
+    assertThat(coalesced.get(WeewxObservation.DATE_TIME)).isEqualTo(4.0);
+    assertThat(coalesced.get(WeewxObservation.OUT_TEMP_C)).isCloseTo(20.0, within(1e-9));
+    assertThat(coalesced.get(WeewxObservation.BAROMETER_MBAR)).isCloseTo(1015.9167, within(1e-4));
+  }
+
+  @Test
+  void processPacketsOfATopicInOrderOnOneLane() {
+    WeewxProperties.Pipeline properties = new WeewxProperties.Pipeline();
+    properties.setWorkers(4);
+    properties.setCapacity(4000);
+    properties.setOverflowPolicy(WeewxIngestionPipeline.OverflowPolicy.BLOCK);
+    Map<String, List<Integer>> sequences = new ConcurrentHashMap<>();
+    Map<String, Set<String>> threads = new ConcurrentHashMap<>();
+    WeewxIngestionPipeline.Processor processor = new WeewxIngestionPipeline.Processor() {
+      @Override
+      public void process(String topic, ByteBuffer payload) {
+        sequences.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(payload.getInt(0));
+        threads.computeIfAbsent(topic, t -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread().getName());
+      }
+
+      @Override
+      public void process(String topic, WeewxLoopRecord record) {
+      }
+    };
+    List<String> topics = IntStream.range(0, 8).mapToObj(i -> "weather/loop/station" + i).toList();
+
+    try (WeewxIngestionPipeline pipeline = new WeewxIngestionPipeline(properties, new WeewxLoopPacketDecoder(), processor)) {
+      for (int i = 0; i < 1000; i++) {
+        for (String topic : topics) {
+          pipeline.submit(topic, ByteBuffer.allocate(Integer.BYTES).putInt(0, i));
+        }
+      }
+      assertThat(pipeline.getLaneCount()).isEqualTo(4);
+      assertThat(pipeline.getCapacity()).isEqualTo(4000);
+    }
+
+    List<Integer> expected = IntStream.range(0, 1000).boxed().toList();
+    for (String topic : topics) {
+      assertThat(sequences.get(topic)).isEqualTo(expected);
+      assertThat(threads.get(topic)).hasSize(1);
+    }
+  }
+
+  private static WeewxProperties.Pipeline pipeline(int capacity, WeewxIngestionPipeline.OverflowPolicy overflowPolicy) {
+    WeewxProperties.Pipeline properties = new WeewxProperties.Pipeline();
+    properties.setCapacity(capacity);
+    properties.setOverflowPolicy(overflowPolicy);
+    return properties;
+  }
+
+  private static ByteBuffer json(String payload) {
+    return ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static ByteBuffer packet(int sequence) {
+    return ByteBuffer.allocate(Integer.BYTES).putInt(0, sequence);
+  }
+
+  /**
+   * Blocks on the first packet until released, so that the following packets stay in the queue.
+   */
+  private static final class BlockingProcessor implements WeewxIngestionPipeline.Processor {
+    private final List<Integer> payloads = new CopyOnWriteArrayList<>();
+    private final List<WeewxLoopRecord> records = new CopyOnWriteArrayList<>();
+    private final CountDownLatch first = new CountDownLatch(1);
+    private final CountDownLatch released = new CountDownLatch(1);
+    private final WeewxLoopPacketDecoder.Layout layout;
+
+    BlockingProcessor() {
+      this(null);
+    }
+
+    BlockingProcessor(WeewxLoopPacketDecoder.Layout layout) {
+      this.layout = layout;
+    }
+
+    @Override
+    public WeewxLoopPacketDecoder.Layout layoutOf(String topic) {
+      return layout;
+    }
+
+    @Override
+    public void process(String topic, ByteBuffer payload) {
+      payloads.add(payload.getInt(0));
+      block();
+    }
+
+    @Override
+    public void process(String topic, WeewxLoopRecord record) {
+      records.add(record);
+      block();
+    }
+
+    private void block() {
+      first.countDown();
+      try {
+        released.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    void awaitFirst() throws InterruptedException {
+      assertThat(first.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    void release() {
+      released.countDown();
+    }
+  }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.weewx;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static io.github.davemeier82.homeautomation.weewx.WeewxObservation.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.io.IOUtils.resourceToByteArray;
+import static org.assertj.core.api.Assertions.*;
+
+class WeewxLoopPacketDecoderTest {
+
+  private final WeewxLoopPacketDecoder decoder = new WeewxLoopPacketDecoder();
+
+  @Test
+  void decodeLoopPayload() throws IOException {
+    byte[] bytes = resourceToByteArray("/loop-payload.json");
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    WeewxLoopRecord record = new WeewxLoopRecord();
+
+    decoder.decode(buffer, record);
+
+    assertThat(record.get(DATE_TIME)).isEqualTo(1724862600.0);
+    assertThat(record.get(UV)).isEqualTo(1.0);
+    assertThat(record.get(LUMINOSITY_LUX)).isEqualTo(19194.0);
+    assertThat(record.get(IN_TEMP_C)).isCloseTo(25.800000000000015, within(1e-12));
+    assertThat(record.isPresent(EXTRA_TEMP2_C)).isFalse();
+    assertThat(record.size()).isEqualTo(36);
+    assertThat(buffer.position()).isZero();
+  }
+
+  @Test
+  void decodeNumbersNullsAndNestedValues() {
+    ByteBuffer buffer = ByteBuffer.wrap("{\"UV\": 1.5e2, \"windDir\": null, \"other\": {\"a\": [1, \"}\"]}, \"outTemp_C\": \"None\", \"inTemp_C\": -0.25}".getBytes(UTF_8));
+    WeewxLoopRecord record = new WeewxLoopRecord();
+
+    decoder.decode(buffer, record);
+
+    assertThat(record.get(UV)).isEqualTo(150.0);
+    assertThat(record.isPresent(WIND_DIR)).isFalse();
+    assertThat(record.isPresent(OUT_TEMP_C)).isFalse();
+    assertThat(record.get(IN_TEMP_C)).isEqualTo(-0.25);
+  }
+
+  @Test
+  void decodeWithLearnedLayout() {
+    WeewxLoopPacketDecoder.Layout layout = new WeewxLoopPacketDecoder.Layout();
+    ByteBuffer full = ByteBuffer.wrap("{\"dateTime\": 1.0, \"unknown\": 7, \"UV\": 2.0, \"inTemp_C\": 20.5}".getBytes(UTF_8));
+    ByteBuffer partial = ByteBuffer.wrap("{\"dateTime\": 2.0, \"inTemp_C\": 21.5, \"unknown\": 8}".getBytes(UTF_8));
+    WeewxLoopRecord record = new WeewxLoopRecord();
+
+    decoder.decode(full, record, layout);
+    decoder.decode(partial, record, layout);
+
+    assertThat(record.get(DATE_TIME)).isEqualTo(2.0);
+    assertThat(record.get(IN_TEMP_C)).isEqualTo(21.5);
+    assertThat(record.isPresent(UV)).isFalse();
+    assertThat(record.size()).isEqualTo(2);
+
+    decoder.decode(full, record, layout);
+
+    assertThat(record.get(DATE_TIME)).isEqualTo(1.0);
+    assertThat(record.get(UV)).isEqualTo(2.0);
+    assertThat(record.get(IN_TEMP_C)).isEqualTo(20.5);
+    assertThat(record.size()).isEqualTo(3);
+    assertThat(layout.size()).isEqualTo(4);
+  }
+
+  @Test
+  void decodeAlternatingLayouts() {
+    WeewxLoopPacketDecoder.Layout layout = new WeewxLoopPacketDecoder.Layout();
+    ByteBuffer full = ByteBuffer.wrap("{\"dateTime\": 1.0, \"UV\": 2.0, \"inTemp_C\": 20.5}".getBytes(UTF_8));
+    ByteBuffer partial = ByteBuffer.wrap("{\"dateTime\": 2.0, \"inTemp_C\": 21.5}".getBytes(UTF_8));
+    ByteBuffer other = ByteBuffer.wrap("{\"dateTime\": 3.0, \"outTemp_C\": 10.0, \"UV\": 4.0}".getBytes(UTF_8));
+    WeewxLoopRecord record = new WeewxLoopRecord();
+
+    for (int i = 0; i < 3; i++) {
+      decoder.decode(full, record, layout);
+      assertThat(record.get(UV)).isEqualTo(2.0);
+      assertThat(record.get(IN_TEMP_C)).isEqualTo(20.5);
+      decoder.decode(partial, record, layout);
+      assertThat(record.get(IN_TEMP_C)).isEqualTo(21.5);
+      assertThat(record.size()).isEqualTo(2);
+      decoder.decode(other, record, layout);
+      assertThat(record.get(OUT_TEMP_C)).isEqualTo(10.0);
+      assertThat(record.get(UV)).isEqualTo(4.0);
+      assertThat(record.isPresent(IN_TEMP_C)).isFalse();
+    }
+    assertThat(layout.size()).isEqualTo(3);
+  }
+
+  @Test
+  void convertUnitSystems() {
+    ByteBuffer us = ByteBuffer.wrap("{\"usUnits\": 1, \"outTemp_F\": 68.0, \"rain_in\": 0.1, \"windSpeed_mph\": 10.0}".getBytes(UTF_8));
+    ByteBuffer metricWx = ByteBuffer.wrap("{\"usUnits\": 17, \"rain_mm\": 2.0, \"windSpeed_mps\": 2.0}".getBytes(UTF_8));
+    WeewxLoopRecord record = new WeewxLoopRecord();
+
+    decoder.decode(us, record);
+
+    assertThat(record.get(OUT_TEMP_C)).isCloseTo(20.0, within(1e-12));
+    assertThat(record.get(RAIN_CM)).isCloseTo(0.254, within(1e-12));
+    assertThat(record.get(WIND_SPEED_KPH)).isCloseTo(16.09344, within(1e-12));
+
+    decoder.decode(metricWx, record);
+
+    assertThat(record.get(RAIN_CM)).isCloseTo(0.2, within(1e-12));
+    assertThat(record.get(WIND_SPEED_KPH)).isCloseTo(7.2, within(1e-12));
+  }
+
+  @Test
+  void convertKeysWithoutUnitLabelByUsUnits() {
+    WeewxLoopPacketDecoder.Layout layout = new WeewxLoopPacketDecoder.Layout();
+    WeewxLoopRecord record = new WeewxLoopRecord();
+
+    decoder.decode(ByteBuffer.wrap("{\"outTemp\": 50.0, \"usUnits\": 1}".getBytes(UTF_8)), record, layout);
+
+    assertThat(record.get(OUT_TEMP_C)).isCloseTo(10.0, within(1e-12));
+    assertThat(layout.getUnitSystem()).isEqualTo(WeewxUnitSystem.US);
+
+    decoder.decode(ByteBuffer.wrap("{\"barometer\": 30.0}".getBytes(UTF_8)), record, layout);
+
+    assertThat(record.get(BAROMETER_MBAR)).isCloseTo(1015.9167, within(1e-4));
+  }
+
+  @Test
+  void readOnlyDateTime() {
+    assertThat(WeewxLoopPacketDecoder.dateTimeOf(ByteBuffer.wrap("{\"dateTime\": 1724862600.0, \"UV\": \"1.0\"".getBytes(UTF_8))))
+        .isEqualTo(1724862600.0);
+    assertThat(WeewxLoopPacketDecoder.dateTimeOf(ByteBuffer.wrap("{\"other\": {\"dateTime\": 1}, \"dateTime\": \"20.5\"}".getBytes(UTF_8))))
+        .isEqualTo(20.5);
+    assertThat(WeewxLoopPacketDecoder.dateTimeOf(ByteBuffer.wrap("{\"UV\": 1.0}".getBytes(UTF_8)))).isNaN();
+    assertThat(WeewxLoopPacketDecoder.dateTimeOf(ByteBuffer.wrap("{}".getBytes(UTF_8)))).isNaN();
+  }
+
+  @Test
+  void rejectMalformedPayload() {
+    ByteBuffer buffer = ByteBuffer.wrap("{\"UV\": \"1.0\"".getBytes(UTF_8));
+
+    assertThatThrownBy(() -> decoder.decode(buffer, new WeewxLoopRecord())).isInstanceOf(IllegalArgumentException.class);
+  }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import org.junit.jupiter.api.Test;
+
+import static io.github.davemeier82.homeautomation.weewx.WeewxObservation.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class WeewxLoopRecordTest {
+
+  @Test
+  void mergeNewerPartialPacket() {
+    WeewxLoopRecord older = new WeewxLoopRecord();
+    older.set(DATE_TIME, 100.0);
+    older.set(OUT_TEMP_C, 20.0);
+    older.set(LIGHTNING_DISTANCE_KM, 12.0);
+    older.set(RAIN_CM, 0.1);
+    WeewxLoopRecord newer = new WeewxLoopRecord();
+    newer.set(DATE_TIME, 102.5);
+    newer.set(OUT_TEMP_C, 20.5);
+    newer.set(RAIN_CM, 0.2);
+    newer.set(WIND_DIR, 90.0);
+
+    older.merge(newer);
+
+    assertThat(older.get(DATE_TIME)).isEqualTo(102.5);
+    assertThat(older.get(OUT_TEMP_C)).isEqualTo(20.5);
+    assertThat(older.get(LIGHTNING_DISTANCE_KM)).isEqualTo(12.0);
+    assertThat(older.get(RAIN_CM)).isCloseTo(0.3, within(1e-12));
+    assertThat(older.get(WIND_DIR)).isEqualTo(90.0);
+    assertThat(older.size()).isEqualTo(5);
+  }
+
+  @Test
+  void formatValuesLikeWeewx() {
+    assertThat(WeewxLoopRecord.format(1724862600.0)).isEqualTo("1724862600.0");
+    assertThat(WeewxLoopRecord.format(12345678.5)).isEqualTo("12345678.5");
+    assertThat(WeewxLoopRecord.format(19194.0)).isEqualTo("19194.0");
+    assertThat(WeewxLoopRecord.format(0.0001)).isEqualTo("0.0001");
+    assertThat(WeewxLoopRecord.format(-0.25)).isEqualTo("-0.25");
+  }
+
+}
@@ -20,6 +20,7 @@ import org.junit.jupiter.api.Test;
 import tools.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.commons.io.IOUtils.resourceToString;
@@ -34,4 +35,17 @@ class WeewxMessageTest {
     assertThat(message.getLuminosityLux()).isEqualTo("19194.0");
   }
 
+  @Test
+  void viewOfLoopRecord() throws IOException {
+    WeewxLoopRecord record = new WeewxLoopRecord();
+    new WeewxLoopPacketDecoder().decode(ByteBuffer.wrap(resourceToString("/loop-payload.json", UTF_8).getBytes(UTF_8)), record);
+
+    WeewxMessage message = record.toWeewxMessage();
+
+    assertThat(message.getUv()).isEqualTo("1.0");
+    assertThat(message.getLuminosityLux()).isEqualTo("19194.0");
+    assertThat(message.getDateTime()).isEqualTo("1724862600.0");
+    assertThat(message.getExtraTemp2C()).isNull();
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.weewx.device.WeewxDeviceType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeewxMicrometerMetricsTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final WeewxMicrometerMetrics metrics = new WeewxMicrometerMetrics(registry);
+
+  @Test
+  void recordPacketsPerStation() {
+    metrics.packetDecoded("weather", 1_000);
+    metrics.packetDispatched("weather", 36, 250);
+    metrics.packetDispatched("weather", 8, -1);
+    metrics.packetRejected("weather");
+
+    assertThat(registry.get("weewx.packet.decode").tag("station", "weather").timer().count()).isEqualTo(1);
+    assertThat(registry.get("weewx.packet.dispatched").tag("station", "weather").counter().count()).isEqualTo(2);
+    assertThat(registry.get("weewx.packet.fields").tag("station", "weather").summary().totalAmount()).isEqualTo(44);
+    assertThat(registry.get("weewx.packet.lag").tag("station", "weather").timer().count()).isEqualTo(1);
+    assertThat(registry.get("weewx.packet.rejected").tag("station", "weather").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void collapseStationsBeyondTheLimit() {
+    WeewxMicrometerMetrics limited = new WeewxMicrometerMetrics(registry, 2);
+
+    for (String station : new String[]{"roof", "garden", "shed", "garage", "roof"}) {
+      limited.packetDispatched(station, 10, -1);
+    }
+
+    assertThat(registry.get("weewx.packet.dispatched").counters()).hasSize(3);
+    assertThat(registry.get("weewx.packet.dispatched").tag("station", "roof").counter().count()).isEqualTo(2);
+    assertThat(registry.get("weewx.packet.dispatched").tag("station", "garden").counter().count()).isEqualTo(1);
+    assertThat(registry.get("weewx.packet.dispatched").tag("station", "other").counter().count()).isEqualTo(2);
+  }
+
+  @Test
+  void timeUpdateService() {
+    double[] published = new double[1];
+    WeewxValueUpdater updater = metrics.instrument(WeewxPropertyType.TEMPERATURE, (value, dateTime, id, displayName) -> published[0] = value);
+
+    updater.setValue(21.5, OffsetDateTime.now(), new DevicePropertyId(new DeviceId("weather", WeewxDeviceType.WEEWX), "outTemperature"), "Outside");
+
+    assertThat(published[0]).isEqualTo(21.5);
+    assertThat(registry.get("weewx.update").tag("type", "temperature").timer().count()).isEqualTo(1);
+  }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.weewx.device.WeewxDeviceType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static io.github.davemeier82.homeautomation.weewx.WeewxPacketWatermark.Verdict.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WeewxPacketWatermarkTest {
+
+  @Test
+  void rejectDuplicateAndLatePackets() {
+    WeewxPacketWatermark watermark = new WeewxPacketWatermark(Duration.ofSeconds(10));
+
+    assertThat(watermark.check(1000)).isEqualTo(ACCEPT);
+    assertThat(watermark.check(1000)).isEqualTo(DUPLICATE);
+    assertThat(watermark.check(1005)).isEqualTo(ACCEPT);
+    assertThat(watermark.check(998)).isEqualTo(ACCEPT);
+    assertThat(watermark.check(998)).isEqualTo(DUPLICATE);
+    assertThat(watermark.check(994)).isEqualTo(LATE);
+    assertThat(watermark.check(1200)).isEqualTo(ACCEPT);
+    assertThat(watermark.check(1195)).isEqualTo(ACCEPT);
+    assertThat(watermark.check(1005)).isEqualTo(LATE);
+    assertThat(watermark.getWatermark()).isEqualTo(1200);
+  }
+
+  @Test
+  void reanchorAfterClockJump() {
+    WeewxPacketWatermark watermark = new WeewxPacketWatermark(Duration.ofSeconds(10), Duration.ofHours(1), 3, clockAt(100_000));
+
+    assertThat(watermark.check(100_000)).isEqualTo(ACCEPT);
+    assertThat(watermark.check(100_000 - 3600)).isEqualTo(LATE);
+    assertThat(watermark.check(100_000 - 3603)).isEqualTo(LATE);
+    assertThat(watermark.check(100_000 - 3602)).isEqualTo(LATE);
+    assertThat(watermark.check(100_000 - 3601)).isEqualTo(ACCEPT);
+    assertThat(watermark.getWatermark()).isEqualTo(100_000 - 3601);
+    assertThat(watermark.getResetCount()).isEqualTo(1);
+    assertThat(watermark.check(100_000 - 3601)).isEqualTo(DUPLICATE);
+    assertThat(watermark.check(100_000 - 3600)).isEqualTo(ACCEPT);
+    assertThat(watermark.check(100_000 - 3620)).isEqualTo(LATE);
+  }
+
+  @Test
+  void dropIsolatedOldRedelivery() {
+    WeewxPacketWatermark watermark = new WeewxPacketWatermark(Duration.ofSeconds(10), Duration.ofHours(1), 3, clockAt(100_000));
+
+    assertThat(watermark.check(100_000)).isEqualTo(ACCEPT);
+    assertThat(watermark.check(100_000 - 7200)).isEqualTo(LATE);
+    assertThat(watermark.check(100_002)).isEqualTo(ACCEPT);
+    assertThat(watermark.check(100_000 - 7199)).isEqualTo(LATE);
+    assertThat(watermark.check(100_004)).isEqualTo(ACCEPT);
+    assertThat(watermark.check(100_000 - 7198)).isEqualTo(LATE);
+    assertThat(watermark.getWatermark()).isEqualTo(100_004);
+    assertThat(watermark.getResetCount()).isZero();
+  }
+
+  @Test
+  void reanchorRightAwayWhenWatermarkIsAheadOfWallClock() {
+    WeewxPacketWatermark watermark = new WeewxPacketWatermark(Duration.ofSeconds(10), Duration.ofHours(1), 3, clockAt(100_000));
+
+    assertThat(watermark.check(100_000 + 86_400)).isEqualTo(ACCEPT);
+    assertThat(watermark.check(100_000 - 7200)).isEqualTo(LATE);
+    assertThat(watermark.check(100_005)).isEqualTo(ACCEPT);
+    assertThat(watermark.getWatermark()).isEqualTo(100_005);
+    assertThat(watermark.getResetCount()).isEqualTo(1);
+  }
+
+  @Test
+  void rejectResetThresholdWithinReorderWindow() {
+    assertThatThrownBy(() -> new WeewxPacketWatermark(Duration.ofSeconds(10), Duration.ofSeconds(5), 3, Clock.systemUTC())).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void publishLatePacketsToHistoryOnly() {
+    WeewxProperties properties = new WeewxProperties();
+    properties.getWatermark().setEnabled(true);
+    properties.getWatermark().setReorderWindow(Duration.ZERO);
+    properties.getWatermark().setLatePolicy(WeewxPacketWatermark.LatePolicy.HISTORY);
+    int[] published = new int[1];
+    int[] recorded = new int[1];
+    Map<WeewxPropertyType, WeewxValueUpdater> updaters = new EnumMap<>(WeewxPropertyType.class);
+    for (WeewxPropertyType type : WeewxPropertyType.values()) {
+      updaters.put(type, (value, dateTime, id, displayName) -> published[0]++);
+    }
+    WeewxStation station = new WeewxStation("weather/loop", new DeviceId("weather", WeewxDeviceType.WEEWX), WeewxPropertyMappings.defaults(),
+        new WeewxValueUpdaters(updaters), properties, null, batch -> recorded[0] += batch.size());
+
+    station.dispatch(record(2000), 2000);
+    station.dispatch(record(2000), 2000);
+    station.dispatch(record(1990), 1990);
+
+    assertThat(published[0]).isEqualTo(1);
+    assertThat(recorded[0]).isEqualTo(1);
+    assertThat(station.getDuplicateCount()).isEqualTo(1);
+    assertThat(station.getLateCount()).isEqualTo(1);
+  }
+
+  private static Clock clockAt(long epochSecond) {
+    return Clock.fixed(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC);
+  }
+
+  private static WeewxLoopRecord record(double dateTime) {
+    WeewxLoopRecord record = new WeewxLoopRecord();
+    record.set(WeewxObservation.DATE_TIME, dateTime);
+    record.set(WeewxObservation.OUT_TEMP_C, 20.0);
+    return record;
+  }
+}
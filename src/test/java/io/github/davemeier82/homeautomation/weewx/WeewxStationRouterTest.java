@@ -0,0 +1,65 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeewxStationRouterTest {
+
+  @Test
+  void routeSubscriptionTopicToDefaultStation() {
+    WeewxStationRouter router = new WeewxStationRouter(new WeewxProperties());
+
+    assertThat(router.getStationId("weather/loop")).isEqualTo("weather");
+    assertThat(router.getStationId("weather/loop/")).isEqualTo("weather");
+  }
+
+  @Test
+  void routeSubtopicToItsSuffix() {
+    WeewxStationRouter router = new WeewxStationRouter(new WeewxProperties());
+
+    assertThat(router.getStationId("weather/loop/garden")).isEqualTo("garden");
+    assertThat(router.getStationId("weather/loop/garden/roof")).isEqualTo("garden/roof");
+  }
+
+  @Test
+  void preferConfiguredStations() {
+    WeewxProperties properties = new WeewxProperties();
+    properties.setStations(Map.of("weather/loop/davis", "roof", "weather/loop", "main"));
+    WeewxStationRouter router = new WeewxStationRouter(properties);
+
+    assertThat(router.getStationId("weather/loop/davis")).isEqualTo("roof");
+    assertThat(router.getStationId("weather/loop")).isEqualTo("main");
+    assertThat(router.getStationId("weather/loop/garden")).isEqualTo("garden");
+  }
+
+  @Test
+  void fallBackToDefaultStationForOtherTopics() {
+    WeewxProperties properties = new WeewxProperties();
+    properties.setTopic("weather/loop");
+    properties.setDefaultStationId("home");
+    WeewxStationRouter router = new WeewxStationRouter(properties);
+
+    assertThat(router.getStationId("weather/loop")).isEqualTo("home");
+    assertThat(router.getStationId("weather/loopback")).isEqualTo("home");
+    assertThat(router.getStationId("other/loop/garden")).isEqualTo("home");
+  }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeewxTimestampsTest {
+
+  @Test
+  void cacheOffsetUntilTransition() {
+    WeewxTimestamps timestamps = new WeewxTimestamps(ZoneId.of("Europe/Zurich"));
+    // 2024-03-31T01:00:00Z, the switch to summer time
+    long transition = 1711846800L;
+
+    assertThat(timestamps.offsetAt(transition - 1)).isEqualTo(ZoneOffset.ofHours(1));
+    assertThat(timestamps.offsetAt(transition)).isEqualTo(ZoneOffset.ofHours(2));
+    assertThat(timestamps.offsetAt(transition - 3600)).isEqualTo(ZoneOffset.ofHours(1));
+    assertThat(timestamps.offsetAt(transition + 3600)).isEqualTo(ZoneOffset.ofHours(2));
+    assertThat(timestamps.dateTimeOf(transition)).isEqualTo(OffsetDateTime.parse("2024-03-31T03:00:00+02:00"));
+    assertThat(timestamps.dateTimeOf(transition - 1)).isEqualTo(OffsetDateTime.parse("2024-03-31T01:59:59+01:00"));
+  }
+
+  @Test
+  void convertSystemDefaultZone() {
+    assertThat(WeewxTimestamps.toDateTime(1724862600.7))
+        .isEqualTo(OffsetDateTime.ofInstant(Instant.ofEpochSecond(1724862600L), ZoneId.systemDefault()));
+  }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx;
+
+import org.junit.jupiter.api.Test;
+
+import static io.github.davemeier82.homeautomation.weewx.WeewxObservation.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class WeewxWindowAggregatorTest {
+
+  @Test
+  void aggregateTumblingWindow() {
+    WeewxProperties.Aggregation aggregation = new WeewxProperties.Aggregation();
+    aggregation.getObservations().put("outHumidity", WeewxAggregationMode.MIN);
+    WeewxWindowAggregator aggregator = new WeewxWindowAggregator(aggregation);
+
+    assertThat(aggregator.add(packet(60, 20.0, 50.0, 3.0, 0.1), 60)).isNull();
+    assertThat(aggregator.add(packet(90, 22.0, 45.0, 9.0, 0.2), 90)).isNull();
+    WeewxLoopRecord aggregate = aggregator.add(packet(120, 30.0, 40.0, 1.0, 0.0), 120);
+
+    assertThat(aggregate.get(DATE_TIME)).isEqualTo(90.0);
+    assertThat(aggregate.get(OUT_TEMP_C)).isEqualTo(21.0);
+    assertThat(aggregate.get(OUT_HUMIDITY)).isEqualTo(45.0);
+    assertThat(aggregate.get(WIND_GUST_KPH)).isEqualTo(9.0);
+    assertThat(aggregate.get(RAIN_CM)).isCloseTo(0.3, within(1e-12));
+    assertThat(aggregator.getWindowStart()).isEqualTo(120);
+    assertThat(aggregator.flush().get(OUT_TEMP_C)).isEqualTo(30.0);
+    assertThat(aggregator.flush()).isNull();
+  }
+
+  @Test
+  void flushEndedWindow() {
+    WeewxWindowAggregator aggregator = new WeewxWindowAggregator(new WeewxProperties.Aggregation());
+
+    assertThat(aggregator.flushEnded(1_000)).isNull();
+    aggregator.add(packet(60, 20.0, 50.0, 3.0, 0.1), 60);
+
+    assertThat(aggregator.flushEnded(129)).isNull();
+    assertThat(aggregator.flushEnded(130).get(OUT_TEMP_C)).isEqualTo(20.0);
+    assertThat(aggregator.flushEnded(180)).isNull();
+  }
+
+  @Test
+  void ignoreLatePacketOfFlushedWindow() {
+    WeewxWindowAggregator aggregator = new WeewxWindowAggregator(new WeewxProperties.Aggregation());
+    aggregator.add(packet(60, 20.0, 50.0, 3.0, 0.1), 60);
+    assertThat(aggregator.flushEnded(130).get(OUT_TEMP_C)).isEqualTo(20.0);
+
+    assertThat(aggregator.isFlushed(100)).isTrue();
+    assertThat(aggregator.add(packet(100, 30.0, 50.0, 3.0, 0.1), 100)).isNull();
+    assertThat(aggregator.flush()).isNull();
+    assertThat(aggregator.isFlushed(120)).isFalse();
+    assertThat(aggregator.add(packet(120, 25.0, 50.0, 3.0, 0.1), 120)).isNull();
+    assertThat(aggregator.flush().get(OUT_TEMP_C)).isEqualTo(25.0);
+  }
+
+  @Test
+  void aggregateWindAsVector() {
+    WeewxWindowAggregator aggregator = new WeewxWindowAggregator(new WeewxProperties.Aggregation());
+
+    aggregator.add(wind(0, 10.0, 350.0, 20.0, 340.0), 0);
+    aggregator.add(wind(3, 10.0, 10.0, 30.0, 15.0), 3);
+    aggregator.add(wind(6, 0.0, 180.0, 5.0, 180.0), 6);
+    WeewxLoopRecord aggregate = aggregator.flush();
+
+    assertThat(aggregate.get(WIND_DIR)).isCloseTo(0.0, within(1e-9));
+    assertThat(aggregate.get(WIND_GUST_KPH)).isEqualTo(30.0);
+    assertThat(aggregate.get(WIND_GUST_DIR)).isEqualTo(15.0);
+    assertThat(aggregate.get(WIND_SPEED_KPH)).isCloseTo(20.0 / 3, within(1e-9));
+
+    aggregator.add(wind(60, 0.0, 90.0, 0.0, 90.0), 60);
+
+    assertThat(aggregator.flush().get(WIND_DIR)).isEqualTo(90.0);
+  }
+
+  @Test
+  void averageVectorSpeedOverPacketsWithDirection() {
+    WeewxProperties.Aggregation aggregation = new WeewxProperties.Aggregation();
+    aggregation.getObservations().put("windSpeed_kph", WeewxAggregationMode.VECTOR);
+    WeewxWindowAggregator aggregator = new WeewxWindowAggregator(aggregation);
+    WeewxLoopRecord speedOnly = new WeewxLoopRecord();
+    speedOnly.set(DATE_TIME, 3.0);
+    speedOnly.set(WIND_SPEED_KPH, 4.0);
+
+    aggregator.add(wind(0, 10.0, 90.0, 10.0, 90.0), 0);
+    aggregator.add(speedOnly, 3);
+    aggregator.add(wind(6, 10.0, 90.0, 10.0, 90.0), 6);
+
+    assertThat(aggregator.flush().get(WIND_SPEED_KPH)).isCloseTo(10.0, within(1e-9));
+
+    aggregator.add(speedOnly, 63);
+
+    assertThat(aggregator.flush().get(WIND_SPEED_KPH)).isEqualTo(4.0);
+  }
+
+  private static WeewxLoopRecord wind(double dateTime, double speed, double direction, double gust, double gustDirection) {
+    WeewxLoopRecord record = new WeewxLoopRecord();
+    record.set(DATE_TIME, dateTime);
+    record.set(WIND_SPEED_KPH, speed);
+    record.set(WIND_DIR, direction);
+    record.set(WIND_GUST_KPH, gust);
+    record.set(WIND_GUST_DIR, gustDirection);
+    return record;
+  }
+
+  private static WeewxLoopRecord packet(double dateTime, double outTemp, double outHumidity, double windGust, double rain) {
+    WeewxLoopRecord record = new WeewxLoopRecord();
+    record.set(DATE_TIME, dateTime);
+    record.set(OUT_TEMP_C, outTemp);
+    record.set(OUT_HUMIDITY, outHumidity);
+    record.set(WIND_GUST_KPH, windGust);
+    record.set(RAIN_CM, rain);
+    return record;
+  }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.diagnostics;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeewxPacketLogTest {
+
+  @Test
+  void keepMostRecentPackets() {
+    WeewxPacketLog packetLog = new WeewxPacketLog(1, 2);
+    ByteBuffer first = ByteBuffer.wrap("{\"dateTime\": 1.0, \"outTemp_C\": 20.0}".getBytes(UTF_8));
+
+    packetLog.record("weather/loop", first);
+    packetLog.record("weather/loop", ByteBuffer.wrap("{\"dateTime\": 2.0}".getBytes(UTF_8)));
+    packetLog.record("weather/loop", ByteBuffer.wrap("{\"dateTime\": 3.0}".getBytes(UTF_8)));
+
+    assertThat(packetLog.getRecentPackets()).extracting(WeewxRecentPacket::payload).containsExactly("{\"dateTime\": 2.0}", "{\"dateTime\": 3.0}");
+    assertThat(first.position()).isZero();
+  }
+
+  @Test
+  void keepNothingWithoutCapacity() {
+    WeewxPacketLog packetLog = new WeewxPacketLog(10, 0);
+
+    packetLog.record("weather/loop", ByteBuffer.wrap("{}".getBytes(UTF_8)));
+
+    assertThat(packetLog.getRecentPackets()).isEmpty();
+  }
+
+}
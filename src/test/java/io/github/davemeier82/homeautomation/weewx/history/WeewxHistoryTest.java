@@ -0,0 +1,60 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.history;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.weewx.WeewxPropertyKey;
+import io.github.davemeier82.homeautomation.weewx.WeewxPropertyType;
+import io.github.davemeier82.homeautomation.weewx.WeewxValueUpdater;
+import io.github.davemeier82.homeautomation.weewx.WeewxValueUpdaters;
+import io.github.davemeier82.homeautomation.weewx.device.WeewxDeviceType;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeewxHistoryTest {
+
+  private final DevicePropertyId wind = new DevicePropertyId(new DeviceId("weather", WeewxDeviceType.WEEWX), "wind");
+
+  @Test
+  void keepSeparateSeriesPerTypeOfAProperty() {
+    Map<WeewxPropertyType, WeewxValueUpdater> updaters = new EnumMap<>(WeewxPropertyType.class);
+    for (WeewxPropertyType type : WeewxPropertyType.values()) {
+      updaters.put(type, (value, dateTime, id, displayName) -> {
+      });
+    }
+    WeewxHistory history = new WeewxHistory(16);
+    WeewxValueUpdaters recorded = history.record(new WeewxValueUpdaters(updaters));
+    OffsetDateTime dateTime = OffsetDateTime.of(2024, 8, 28, 16, 30, 0, 0, ZoneOffset.UTC);
+
+    recorded.get(WeewxPropertyType.WIND_SPEED).setValue(12.0, dateTime, wind, "Wind Speed");
+    recorded.get(WeewxPropertyType.WIND_DIRECTION).setValue(270.0, dateTime, wind, "Wind Direction");
+
+    assertThat(history.getKeys()).containsExactlyInAnyOrder(
+        new WeewxPropertyKey(wind, WeewxPropertyType.WIND_SPEED),
+        new WeewxPropertyKey(wind, WeewxPropertyType.WIND_DIRECTION));
+    assertThat(history.get(wind, WeewxPropertyType.WIND_SPEED).orElseThrow().range(0, Long.MAX_VALUE).values()).containsExactly(12.0f);
+    assertThat(history.get(wind, WeewxPropertyType.WIND_DIRECTION).orElseThrow().range(0, Long.MAX_VALUE).values()).containsExactly(270.0f);
+    assertThat(history.get(wind, WeewxPropertyType.WIND_GUST_SPEED)).isEmpty();
+  }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.history;
+
+import io.github.davemeier82.homeautomation.weewx.WeewxAggregationMode;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeewxTimeSeriesTest {
+
+  @Test
+  void keepMostRecentValues() {
+    WeewxTimeSeries series = new WeewxTimeSeries(4);
+    for (int i = 0; i < 6; i++) {
+      series.add(100 + i * 10, i);
+    }
+    series.add(110, 99);
+
+    WeewxSamples samples = series.range(0, 200);
+
+    assertThat(series.size()).isEqualTo(4);
+    assertThat(samples.epochSeconds()).containsExactly(120, 130, 140, 150);
+    assertThat(samples.values()).containsExactly(2, 3, 4, 5);
+    assertThat(series.range(130, 150).values()).containsExactly(3, 4);
+    assertThat(series.range(151, 200).size()).isZero();
+  }
+
+  @Test
+  void insertLateValues() {
+    WeewxTimeSeries series = new WeewxTimeSeries(4);
+    series.add(100, 1);
+    series.add(130, 4);
+    series.add(110, 2);
+    series.add(120, 3);
+    series.add(105, 9);
+
+    WeewxSamples samples = series.range(0, 200);
+
+    assertThat(samples.epochSeconds()).containsExactly(105, 110, 120, 130);
+    assertThat(samples.values()).containsExactly(9, 2, 3, 4);
+  }
+
+  @Test
+  void downsampleIntoBuckets() {
+    WeewxTimeSeries series = new WeewxTimeSeries(100);
+    for (int i = 0; i < 10; i++) {
+      series.add(i * 10, i);
+    }
+
+    WeewxSamples average = series.downsample(0, 100, 30, WeewxAggregationMode.AVERAGE);
+    WeewxSamples maximum = series.downsample(10, 60, 25, WeewxAggregationMode.MAX);
+
+    assertThat(average.epochSeconds()).containsExactly(0, 30, 60, 90);
+    assertThat(average.values()).containsExactly(1, 4, 7, 9);
+    assertThat(maximum.epochSeconds()).containsExactly(10, 35);
+    assertThat(maximum.values()).containsExactly(3, 5);
+  }
+
+}
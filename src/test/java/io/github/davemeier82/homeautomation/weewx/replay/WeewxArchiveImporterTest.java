@@ -0,0 +1,140 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.replay;
+
+import io.github.davemeier82.homeautomation.core.device.Device;
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.weewx.WeewxDeviceResolver;
+import io.github.davemeier82.homeautomation.weewx.WeewxMetrics;
+import io.github.davemeier82.homeautomation.weewx.WeewxMqttSubscriber;
+import io.github.davemeier82.homeautomation.weewx.WeewxProperties;
+import io.github.davemeier82.homeautomation.weewx.WeewxPropertyType;
+import io.github.davemeier82.homeautomation.weewx.WeewxValueUpdater;
+import io.github.davemeier82.homeautomation.weewx.WeewxValueUpdaters;
+import io.github.davemeier82.homeautomation.weewx.device.WeewxDevice;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeewxArchiveImporterTest {
+
+  private final List<String> updates = new ArrayList<>();
+
+  @Test
+  void importCsvInArchiveOrder(@TempDir Path directory) throws IOException {
+    String rows = IntStream.range(0, 25_000)
+        .mapToObj(i -> (1_000_000 + i * 300) + ",16," + (i % 100) / 10.0 + ",0.02,")
+        .collect(Collectors.joining("\n"));
+    Path file = Files.writeString(directory.resolve("archive.csv"), "dateTime,usUnits,outTemp,rain,windDir\n" + rows + "\n1,1,80.0,0.1,\n2,16\n3,99,10.0,0.0,\n");
+
+    WeewxReplayResult result = new WeewxArchiveImporter(subscriber(), 4).importCsv(file, "weather/loop");
+
+    assertThat(result.packets()).isEqualTo(25_001);
+    assertThat(result.failures()).isEqualTo(2);
+    assertThat(updates).hasSize(50_002);
+    assertThat(updates.get(0)).isEqualTo("outdoorTemperature 0.0 1000000");
+    assertThat(updates.get(2 * 12_345)).isEqualTo("outdoorTemperature 4.5 " + (1_000_000 + 12_345 * 300));
+    assertThat(updates.get(1)).isEqualTo("rain 0.2 1000000");
+    assertThat(updates.get(50_000)).startsWith("outdoorTemperature 26.666");
+    assertThat(updates.get(50_001)).startsWith("rain 2.54");
+  }
+
+  @Test
+  void importQuotedCsvWithoutLag(@TempDir Path directory) throws IOException {
+    Path file = Files.writeString(directory.resolve("archive.csv"), """
+        "dateTime","usUnits","outTemp","comment"
+        1000,16,"20.5","windy, ""gusts""\"
+        1300,16,"21.5","unclosed
+        1600,16,22.5,
+        """);
+    List<Long> lags = new ArrayList<>();
+    WeewxMetrics metrics = new WeewxMetrics() {
+      @Override
+      public void packetDispatched(String stationId, int fields, long lagMillis) {
+        lags.add(lagMillis);
+      }
+    };
+
+    WeewxReplayResult result = new WeewxArchiveImporter(subscriber(metrics), 2).importCsv(file, "weather/loop");
+
+    assertThat(result.packets()).isEqualTo(2);
+    assertThat(result.failures()).isEqualTo(1);
+    assertThat(updates).containsExactly("outdoorTemperature 20.5 1000", "outdoorTemperature 22.5 1600");
+    assertThat(lags).containsExactly(-1L, -1L);
+  }
+
+  @Test
+  void importBehindLiveWatermark(@TempDir Path directory) throws IOException {
+    Path file = Files.writeString(directory.resolve("archive.csv"), "dateTime,usUnits,outTemp\n1000,16,20.5\n1300,16,21.5\n");
+    WeewxProperties properties = new WeewxProperties();
+    properties.getWatermark().setEnabled(true);
+    WeewxMqttSubscriber subscriber = subscriber(properties, WeewxMetrics.NOOP);
+    subscriber.processMessage("weather/loop", Optional.of(ByteBuffer.wrap("{\"dateTime\": 2000000000, \"outTemp_C\": 15.0}".getBytes(UTF_8))));
+
+    WeewxReplayResult result = new WeewxArchiveImporter(subscriber, 2).importCsv(file, "weather/loop");
+    subscriber.processMessage("weather/loop", Optional.of(ByteBuffer.wrap("{\"dateTime\": 2000000001, \"outTemp_C\": 16.0}".getBytes(UTF_8))));
+
+    assertThat(result.packets()).isEqualTo(2);
+    assertThat(result.failures()).isZero();
+    assertThat(updates).containsExactly("outdoorTemperature 15.0 2000000000", "outdoorTemperature 20.5 1000", "outdoorTemperature 21.5 1300",
+        "outdoorTemperature 16.0 2000000001");
+    assertThat(subscriber.getStations()).singleElement().satisfies(station -> assertThat(station.getLateCount()).isZero());
+  }
+
+  @Test
+  void splitCsvFields() {
+    assertThat(WeewxArchiveImporter.fields("1,,2")).containsExactly("1", "", "2");
+    assertThat(WeewxArchiveImporter.fields("\"a,b\",\"say \"\"hi\"\"\",")).containsExactly("a,b", "say \"hi\"", "");
+    assertThat(WeewxArchiveImporter.fields("1,\"open")).isNull();
+  }
+
+  private WeewxMqttSubscriber subscriber() {
+    return subscriber(WeewxMetrics.NOOP);
+  }
+
+  private WeewxMqttSubscriber subscriber(WeewxMetrics metrics) {
+    return subscriber(new WeewxProperties(), metrics);
+  }
+
+  private WeewxMqttSubscriber subscriber(WeewxProperties properties, WeewxMetrics metrics) {
+    Map<WeewxPropertyType, WeewxValueUpdater> updaters = new EnumMap<>(WeewxPropertyType.class);
+    for (WeewxPropertyType type : WeewxPropertyType.values()) {
+      updaters.put(type, (value, dateTime, id, displayName) -> updates.add(id.id() + " " + value + " " + dateTime.toEpochSecond()));
+    }
+    WeewxDeviceResolver deviceResolver = new WeewxDeviceResolver(null, null) {
+      @Override
+      public Device resolve(DeviceId deviceId) {
+        return new WeewxDevice(deviceId.id(), deviceId.id(), Map.of());
+      }
+    };
+    return new WeewxMqttSubscriber(properties, new WeewxValueUpdaters(updaters), deviceResolver, metrics);
+  }
+
+}
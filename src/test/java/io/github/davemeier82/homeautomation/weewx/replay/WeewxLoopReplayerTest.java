@@ -0,0 +1,161 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.replay;
+
+import io.github.davemeier82.homeautomation.core.device.Device;
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.weewx.WeewxDeviceResolver;
+import io.github.davemeier82.homeautomation.weewx.WeewxIngestionPipeline;
+import io.github.davemeier82.homeautomation.weewx.WeewxMetrics;
+import io.github.davemeier82.homeautomation.weewx.WeewxMqttSubscriber;
+import io.github.davemeier82.homeautomation.weewx.WeewxProperties;
+import io.github.davemeier82.homeautomation.weewx.WeewxPropertyType;
+import io.github.davemeier82.homeautomation.weewx.WeewxValueUpdater;
+import io.github.davemeier82.homeautomation.weewx.WeewxValueUpdaters;
+import io.github.davemeier82.homeautomation.weewx.device.WeewxDevice;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeewxLoopReplayerTest {
+
+  private final List<Double> temperatures = new CopyOnWriteArrayList<>();
+
+  @Test
+  void replayAcrossRegions(@TempDir Path directory) throws IOException {
+    Path file = Files.writeString(directory.resolve("loop.ndjson"), """
+        {"dateTime": "1000.0", "outTemp_C": "20.5"}
+
+        {"dateTime": "1002.5", "outTemp_C": "20.6"}\r
+        {"dateTime": "1005.0", "outTemp_C":
+        {"dateTime": "1007.5", "outTemp_C": "20.8"}""");
+    WeewxLoopReplayer replayer = new WeewxLoopReplayer(subscriber(), 64);
+
+    WeewxReplayResult result = replayer.replay(file, "weather/loop", 0);
+
+    assertThat(result.packets()).isEqualTo(3);
+    assertThat(result.failures()).isEqualTo(1);
+    assertThat(temperatures).containsExactly(20.5, 20.6, 20.8);
+  }
+
+  @Test
+  void paceByPacketTime(@TempDir Path directory) throws IOException {
+    Path file = Files.writeString(directory.resolve("loop.ndjson"), """
+        {"dateTime": "1000.0", "outTemp_C": "20.5"}
+        {"dateTime": "1010.0", "outTemp_C": "20.6"}
+        """);
+
+    WeewxReplayResult result = new WeewxLoopReplayer(subscriber()).replay(file, "weather/loop", 100);
+
+    assertThat(result.packets()).isEqualTo(2);
+    assertThat(result.elapsed().toMillis()).isGreaterThanOrEqualTo(100);
+  }
+
+  @Test
+  void waitForThePipeline(@TempDir Path directory) throws IOException {
+    StringBuilder lines = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      lines.append("{\"dateTime\": ").append(1000 + i).append(", \"outTemp_C\": ").append(i).append("}\n");
+    }
+    Path file = Files.writeString(directory.resolve("loop.ndjson"), lines);
+    WeewxProperties properties = new WeewxProperties();
+    properties.getPipeline().setEnabled(true);
+    properties.getPipeline().setOverflowPolicy(WeewxIngestionPipeline.OverflowPolicy.BLOCK);
+
+    WeewxReplayResult result = new WeewxLoopReplayer(subscriber(properties)).replay(file, "weather/loop", 0);
+
+    assertThat(result.packets()).isEqualTo(100);
+    assertThat(result.dropped()).isZero();
+    assertThat(temperatures).hasSize(100).endsWith(99.0);
+  }
+
+  @Test
+  void replayWithoutLagAndPacketLog(@TempDir Path directory) throws IOException {
+    Path file = Files.writeString(directory.resolve("loop.ndjson"), """
+        {"dateTime": "1000.0", "outTemp_C": "20.5"}
+        {"dateTime": "1002.5", "outTemp_C": "20.6"}
+        """);
+    WeewxProperties properties = new WeewxProperties();
+    properties.getDiagnostics().setEnabled(true);
+    properties.getPipeline().setEnabled(true);
+    List<Long> lags = new CopyOnWriteArrayList<>();
+    WeewxMetrics metrics = new WeewxMetrics() {
+      @Override
+      public void packetDispatched(String stationId, int fields, long lagMillis) {
+        lags.add(lagMillis);
+      }
+    };
+    WeewxMqttSubscriber subscriber = subscriber(properties, metrics);
+
+    new WeewxLoopReplayer(subscriber).replay(file, "weather/loop", 0);
+
+    assertThat(temperatures).containsExactly(20.5, 20.6);
+    assertThat(lags).containsExactly(-1L, -1L);
+    assertThat(subscriber.getStations()).singleElement().satisfies(station -> assertThat(station.getPacketLog().getRecentPackets()).isEmpty());
+  }
+
+  @Test
+  void publishLastAggregationWindow(@TempDir Path directory) throws IOException {
+    Path file = Files.writeString(directory.resolve("loop.ndjson"), """
+        {"dateTime": "1000.0", "outTemp_C": "20.0"}
+        {"dateTime": "1010.0", "outTemp_C": "21.0"}
+        {"dateTime": "1030.0", "outTemp_C": "24.0"}
+        {"dateTime": "1040.0", "outTemp_C": "26.0"}
+        """);
+    WeewxProperties properties = new WeewxProperties();
+    properties.getAggregation().setEnabled(true);
+
+    new WeewxLoopReplayer(subscriber(properties)).replay(file, "weather/loop", 0);
+
+    assertThat(temperatures).containsExactly(20.5, 25.0);
+  }
+
+  private WeewxMqttSubscriber subscriber() {
+    return subscriber(new WeewxProperties());
+  }
+
+  private WeewxMqttSubscriber subscriber(WeewxProperties properties) {
+    return subscriber(properties, WeewxMetrics.NOOP);
+  }
+
+  private WeewxMqttSubscriber subscriber(WeewxProperties properties, WeewxMetrics metrics) {
+    Map<WeewxPropertyType, WeewxValueUpdater> updaters = new EnumMap<>(WeewxPropertyType.class);
+    for (WeewxPropertyType type : WeewxPropertyType.values()) {
+      updaters.put(type, (value, dateTime, id, displayName) -> {
+        if (id.id().equals("outdoorTemperature")) {
+          temperatures.add(value);
+        }
+      });
+    }
+    WeewxDeviceResolver deviceResolver = new WeewxDeviceResolver(null, null) {
+      @Override
+      public Device resolve(DeviceId deviceId) {
+        return new WeewxDevice(deviceId.id(), deviceId.id(), Map.of());
+      }
+    };
+    return new WeewxMqttSubscriber(properties, new WeewxValueUpdaters(updaters), deviceResolver, metrics);
+  }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2021-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.davemeier82.homeautomation.weewx.snapshot;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.weewx.WeewxPropertyType;
+import io.github.davemeier82.homeautomation.weewx.WeewxValueUpdater;
+import io.github.davemeier82.homeautomation.weewx.WeewxValueUpdaters;
+import io.github.davemeier82.homeautomation.weewx.device.WeewxDeviceType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeewxSnapshotTest {
+
+  private final List<String> updates = new ArrayList<>();
+
+  @Test
+  void restoreWrittenSnapshot(@TempDir Path directory) throws IOException {
+    Path file = directory.resolve("weewx-snapshot.bin");
+    DeviceId deviceId = new DeviceId("roof", WeewxDeviceType.WEEWX);
+    WeewxSnapshot snapshot = new WeewxSnapshot(file, Duration.ZERO);
+    snapshot.add(WeewxPropertyType.TEMPERATURE, new DevicePropertyId(deviceId, "outdoorTemperature"), "Outdoor Temperature", 21.5, 1000);
+    snapshot.add(WeewxPropertyType.WIND_SPEED, new DevicePropertyId(deviceId, "wind"), "Wind Speed", 3.0, 1005);
+    snapshot.add(WeewxPropertyType.TEMPERATURE, new DevicePropertyId(deviceId, "outdoorTemperature"), "Outdoor Temperature", 22.0, 1010);
+    snapshot.close();
+    List<DeviceId> resolved = new ArrayList<>();
+
+    int restored = new WeewxSnapshot(file, Duration.ZERO).restore(valueUpdaters(), resolved::add);
+
+    assertThat(restored).isEqualTo(2);
+    assertThat(resolved).containsExactly(deviceId);
+    assertThat(updates).containsExactlyInAnyOrder("TEMPERATURE roof outdoorTemperature 22.0 1010", "WIND_SPEED roof wind 3.0 1005");
+  }
+
+  @Test
+  void restoreTypesSharingAPropertyId(@TempDir Path directory) {
+    Path file = directory.resolve("weewx-snapshot.bin");
+    DevicePropertyId wind = new DevicePropertyId(new DeviceId("roof", WeewxDeviceType.WEEWX), "wind");
+    WeewxSnapshot snapshot = new WeewxSnapshot(file, Duration.ZERO);
+    snapshot.add(WeewxPropertyType.WIND_SPEED, wind, "Wind Speed", 3.0, 1005);
+    snapshot.add(WeewxPropertyType.WIND_DIRECTION, wind, "Wind Direction", 270.0, 1005);
+    snapshot.close();
+
+    int restored = new WeewxSnapshot(file, Duration.ZERO).restore(valueUpdaters(), id -> {});
+
+    assertThat(restored).isEqualTo(2);
+    assertThat(updates).containsExactlyInAnyOrder("WIND_SPEED roof wind 3.0 1005", "WIND_DIRECTION roof wind 270.0 1005");
+  }
+
+  @Test
+  void keepValuesReceivedBeforeRestore(@TempDir Path directory) {
+    Path file = directory.resolve("weewx-snapshot.bin");
+    DevicePropertyId temperature = new DevicePropertyId(new DeviceId("roof", WeewxDeviceType.WEEWX), "outdoorTemperature");
+    WeewxSnapshot previous = new WeewxSnapshot(file, Duration.ZERO);
+    previous.add(WeewxPropertyType.TEMPERATURE, temperature, "Outdoor Temperature", 18.0, 1000);
+    previous.close();
+    WeewxSnapshot snapshot = new WeewxSnapshot(file, Duration.ofHours(1));
+    snapshot.add(WeewxPropertyType.TEMPERATURE, temperature, "Outdoor Temperature", 21.0, 2000);
+
+    assertThat(snapshot.restore(valueUpdaters(), id -> {})).isZero();
+    snapshot.close();
+
+    new WeewxSnapshot(file, Duration.ZERO).restore(valueUpdaters(), id -> {});
+    assertThat(updates).containsExactly("TEMPERATURE roof outdoorTemperature 21.0 2000");
+  }
+
+  @Test
+  void doNotWriteRestoredValuesAgain(@TempDir Path directory) throws IOException {
+    Path file = directory.resolve("weewx-snapshot.bin");
+    DevicePropertyId temperature = new DevicePropertyId(new DeviceId("roof", WeewxDeviceType.WEEWX), "outdoorTemperature");
+    WeewxSnapshot previous = new WeewxSnapshot(file, Duration.ZERO);
+    previous.add(WeewxPropertyType.TEMPERATURE, temperature, "Outdoor Temperature", 18.0, 1000);
+    previous.close();
+    WeewxSnapshot snapshot = new WeewxSnapshot(file, Duration.ZERO);
+
+    assertThat(snapshot.restore(snapshot.record(valueUpdaters()), id -> {})).isEqualTo(1);
+    Files.delete(file);
+    snapshot.close();
+
+    assertThat(file).doesNotExist();
+    assertThat(updates).containsExactly("TEMPERATURE roof outdoorTemperature 18.0 1000");
+  }
+
+  @Test
+  void ignoreMissingSnapshot(@TempDir Path directory) {
+    assertThat(new WeewxSnapshot(directory.resolve("missing.bin"), Duration.ZERO).restore(valueUpdaters(), id -> {})).isZero();
+  }
+
+  private WeewxValueUpdaters valueUpdaters() {
+    Map<WeewxPropertyType, WeewxValueUpdater> updaters = new EnumMap<>(WeewxPropertyType.class);
+    for (WeewxPropertyType type : WeewxPropertyType.values()) {
+      updaters.put(type, (value, dateTime, id, displayName) -> updates.add(type + " " + id.deviceId().id() + " " + id.id() + " " + value + " " + dateTime.toEpochSecond()));
+    }
+    return new WeewxValueUpdaters(updaters);
+  }
+
+}